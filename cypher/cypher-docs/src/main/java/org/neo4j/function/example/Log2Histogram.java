@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts integer values in buckets that double in size: values up to 0, 1, 2-3, 4-7 and so on.
+ */
+public final class Log2Histogram implements Mergeable<Log2Histogram> {
+    private final long[] counts = new long[Long.SIZE];
+
+    public void add(long[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            long value = values[i];
+            counts[value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+        }
+    }
+
+    @Override
+    public void merge(Log2Histogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * @return the count of every bucket, up to the last one that isn't empty.
+     */
+    public List<Long> counts() {
+        int last = counts.length - 1;
+        while (last >= 0 && counts[last] == 0) {
+            last--;
+        }
+        List<Long> result = new ArrayList<>(last + 1);
+        for (int i = 0; i <= last; i++) {
+            result.add(counts[i]);
+        }
+        return result;
+    }
+}
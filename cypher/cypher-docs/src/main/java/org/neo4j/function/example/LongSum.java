@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+/**
+ * The sum of integer values.
+ */
+public final class LongSum implements Mergeable<LongSum> {
+    private long sum;
+
+    public void add(long[] values, int length) {
+        long chunkSum = 0;
+        for (int i = 0; i < length; i++) {
+            chunkSum = Math.addExact(chunkSum, values[i]);
+        }
+        sum = Math.addExact(sum, chunkSum);
+    }
+
+    @Override
+    public void merge(LongSum other) {
+        sum = Math.addExact(sum, other.sum);
+    }
+
+    public long sum() {
+        return sum;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import static org.neo4j.function.example.ValueChunks.DEFAULT_CHUNK_SIZE;
+
+import java.util.List;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserAggregationFunction;
+import org.neo4j.procedure.UserAggregationResult;
+import org.neo4j.procedure.UserAggregationUpdate;
+
+/**
+ * User-defined aggregation functions over numbers, built like {@link LongestString} but with the values
+ * buffered into primitive chunks by {@link ValueChunks} and aggregated into {@link Mergeable} states.
+ */
+public class NumericAggregations {
+    @UserAggregationFunction
+    @Description("org.neo4j.function.example.longSum(integer) - sums integers, failing rather than overflowing")
+    public LongSumAggregator longSum() {
+        return new LongSumAggregator();
+    }
+
+    @UserAggregationFunction
+    @Description("org.neo4j.function.example.log2Histogram(integer) - counts integers in buckets of 0, 1, 2-3, 4-7 " +
+            "and so on")
+    public Log2HistogramAggregator log2Histogram() {
+        return new Log2HistogramAggregator();
+    }
+
+    @UserAggregationFunction
+    @Description("org.neo4j.function.example.approxDistinct(value) - estimates the number of distinct values")
+    public ApproxDistinctAggregator approxDistinct() {
+        return new ApproxDistinctAggregator();
+    }
+
+    @UserAggregationFunction
+    @Description("org.neo4j.function.example.approxPercentile(number, percentile) - estimates the given percentile, " +
+            "between 0.0 and 1.0, of the numbers")
+    public ApproxPercentileAggregator approxPercentile() {
+        return new ApproxPercentileAggregator();
+    }
+
+    public static class LongSumAggregator {
+        private final LongSum state = new LongSum();
+        private final ValueChunks.Longs chunks = new ValueChunks.Longs(DEFAULT_CHUNK_SIZE, state::add);
+
+        @UserAggregationUpdate
+        public void add(@Name("integer") Long value) {
+            if (value != null) {
+                chunks.add(value);
+            }
+        }
+
+        @UserAggregationResult
+        public Long result() {
+            chunks.flush();
+            return state.sum();
+        }
+    }
+
+    public static class Log2HistogramAggregator {
+        private final Log2Histogram state = new Log2Histogram();
+        private final ValueChunks.Longs chunks = new ValueChunks.Longs(DEFAULT_CHUNK_SIZE, state::add);
+
+        @UserAggregationUpdate
+        public void add(@Name("integer") Long value) {
+            if (value != null) {
+                chunks.add(value);
+            }
+        }
+
+        @UserAggregationResult
+        public List<Long> result() {
+            chunks.flush();
+            return state.counts();
+        }
+    }
+
+    public static class ApproxDistinctAggregator {
+        // Keep booleans, entities and lists apart from numbers that would otherwise hash the same
+        private static final long TRUE = 0x5bd1e9955bd1e995L;
+        private static final long FALSE = 0x27d4eb2f165667c5L;
+        private static final long NODE = 0x165667b19e3779f9L;
+        private static final long RELATIONSHIP = 0x85ebca77c2b2ae63L;
+        private static final long LIST = 0x9e3779b97f4a7c15L;
+
+        private final HyperLogLog state = new HyperLogLog();
+        private final ValueChunks.Longs chunks = new ValueChunks.Longs(DEFAULT_CHUNK_SIZE, state::add);
+
+        @UserAggregationUpdate
+        public void add(@Name("value") Object value) {
+            if (value != null) {
+                chunks.add(hash(value));
+            }
+        }
+
+        @UserAggregationResult
+        public Long result() {
+            chunks.flush();
+            return state.estimate();
+        }
+
+        /**
+         * A 64-bit hash of a Cypher value. Numbers that are equal in Cypher, such as 1 and 1.0, hash the same.
+         * Values other than numbers, strings, booleans, entities and lists fall back to their {@link Object#hashCode()}.
+         */
+        static long hash(Object value) {
+            if (value instanceof Double || value instanceof Float) {
+                double number = ((Number) value).doubleValue();
+                if (number == Math.rint(number) && number >= -0x1p63 && number < 0x1p63) {
+                    return HyperLogLog.hash((long) number);
+                }
+                return HyperLogLog.hash(Double.doubleToLongBits(number));
+            }
+            if (value instanceof Number) {
+                return HyperLogLog.hash(((Number) value).longValue());
+            }
+            if (value instanceof String) {
+                String string = (String) value;
+                // FNV-1a over the UTF-16 chars
+                long hash = 0xcbf29ce484222325L;
+                for (int i = 0; i < string.length(); i++) {
+                    hash ^= string.charAt(i);
+                    hash *= 0x100000001b3L;
+                }
+                return HyperLogLog.hash(hash);
+            }
+            if (value instanceof Boolean) {
+                return HyperLogLog.hash((Boolean) value ? TRUE : FALSE);
+            }
+            if (value instanceof Entity) {
+                Entity entity = (Entity) value;
+                return HyperLogLog.hash(entity.getId() ^ (entity instanceof Node ? NODE : RELATIONSHIP));
+            }
+            if (value instanceof List) {
+                long hash = LIST;
+                for (Object element : (List<?>) value) {
+                    hash = HyperLogLog.hash(hash ^ (element == null ? 0 : hash(element)));
+                }
+                return hash;
+            }
+            return HyperLogLog.hash(value.hashCode());
+        }
+    }
+
+    public static class ApproxPercentileAggregator {
+        private final TDigest state = new TDigest();
+        private final ValueChunks.Doubles chunks = new ValueChunks.Doubles(DEFAULT_CHUNK_SIZE, state::add);
+        private double percentile;
+
+        @UserAggregationUpdate
+        public void add(@Name("number") Number value, @Name("percentile") double percentile) {
+            this.percentile = percentile;
+            if (value != null) {
+                chunks.add(value.doubleValue());
+            }
+        }
+
+        @UserAggregationResult
+        public Double result() {
+            chunks.flush();
+            double result = state.quantile(percentile);
+            return Double.isNaN(result) ? null : result;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import java.util.List;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserFunction;
+
+/**
+ * A variant of {@link JoinFunction} for joining large lists, which builds the result in a single buffer
+ * sized up front and can stop at a maximum length.
+ */
+public class StreamingJoinFunction {
+    /**
+     * Joins a list of strings together using the provided delimiter, keeping at most {@code maxLength} characters.
+     *
+     * @param strings   the strings to join
+     * @param delimiter the delimiter to join with (optional)
+     * @param maxLength the maximum length of the result, or a negative number for no maximum (optional)
+     * @return A string composed of the <code>strings</code> joined using the <code>delimiter</code>, cut off after
+     * <code>maxLength</code> characters
+     */
+    @UserFunction
+    @Description("org.neo4j.function.example.joinLimited(['s1','s2',...], delimiter, maxLength) - join the given " +
+            "strings with the given delimiter, keeping at most maxLength characters.")
+    public String joinLimited(
+            @Name("strings") List<String> strings,
+            @Name(value = "delimiter", defaultValue = ",") String delimiter,
+            @Name(value = "maxLength", defaultValue = "-1") long maxLength) {
+        if (strings == null || delimiter == null) {
+            return null;
+        }
+        return join(strings, delimiter, maxLength < 0 ? Integer.MAX_VALUE : (int) Math.min(maxLength, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Joins like {@link String#join(CharSequence, Iterable)}, but sizes the buffer from the lengths of the strings
+     * instead of growing it, and stops appending as soon as {@code maxLength} characters have been written.
+     */
+    static String join(List<String> strings, String delimiter, int maxLength) {
+        int size = strings.size();
+        if (size == 0 || maxLength == 0) {
+            return "";
+        }
+
+        long length = (long) delimiter.length() * (size - 1);
+        for (String string : strings) {
+            length += string == null ? 4 : string.length();
+            if (length >= maxLength) {
+                break;
+            }
+        }
+        StringBuilder joined = new StringBuilder((int) Math.min(length, maxLength));
+
+        boolean first = true;
+        for (String string : strings) {
+            if (!first && !append(joined, delimiter, maxLength)) {
+                break;
+            }
+            first = false;
+            if (!append(joined, string == null ? "null" : string, maxLength)) {
+                break;
+            }
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @return whether there is room for more after appending.
+     */
+    private static boolean append(StringBuilder joined, String string, int maxLength) {
+        int room = maxLength - joined.length();
+        if (string.length() < room) {
+            joined.append(string);
+            return true;
+        }
+        int end = room;
+        // Don't leave half of a surrogate pair at the end
+        if (end > 0 && end < string.length() && Character.isHighSurrogate(string.charAt(end - 1))) {
+            end--;
+        }
+        joined.append(string, 0, end);
+        return false;
+    }
+}
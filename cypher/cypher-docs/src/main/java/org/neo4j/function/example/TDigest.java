@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import java.util.Arrays;
+
+/**
+ * Estimates percentiles of a stream of numbers using a merging t-digest.
+ * <p>
+ * The values are summarised as a bounded number of weighted centroids, which are kept small near the
+ * ends of the distribution, where accuracy matters most for percentiles like 0.99, and larger in the
+ * middle. New values are buffered and merged into the centroids a buffer at a time.
+ */
+public final class TDigest implements Mergeable<TDigest> {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10, was " + compression);
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) * 2;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity * 5];
+        this.bufferWeights = new double[capacity * 5];
+    }
+
+    public void add(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            add(values[i], 1);
+        }
+    }
+
+    @Override
+    public void merge(TDigest other) {
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        for (int i = 0; i < other.buffered; i++) {
+            add(other.bufferMeans[i], other.bufferWeights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.5 for the median.
+     * @return the estimated value at the given quantile, or {@code NaN} if no values have been added.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, was " + quantile);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double total = 0;
+        for (int i = 0; i < centroids; i++) {
+            total += weights[i];
+        }
+        double index = quantile * total;
+        double firstCenter = weights[0] / 2;
+        if (index <= firstCenter) {
+            return interpolate(min, means[0], index / firstCenter);
+        }
+
+        double center = firstCenter;
+        double passed = weights[0];
+        for (int i = 1; i < centroids; i++) {
+            double nextCenter = passed + weights[i] / 2;
+            if (index <= nextCenter) {
+                return interpolate(means[i - 1], means[i], (index - center) / (nextCenter - center));
+            }
+            center = nextCenter;
+            passed += weights[i];
+        }
+        double lastWeight = total - center;
+        return interpolate(means[centroids - 1], max, (index - center) / lastWeight);
+    }
+
+    private void add(double mean, double weight) {
+        if (Double.isNaN(mean)) {
+            return;
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int count = centroids + buffered;
+        double[] allMeans = Arrays.copyOf(means, count);
+        double[] allWeights = Arrays.copyOf(weights, count);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        buffered = 0;
+        sortByMean(allMeans, allWeights, count);
+
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += allWeights[i];
+        }
+
+        int merged = 0;
+        double passed = 0;
+        double currentMean = allMeans[0];
+        double currentWeight = allWeights[0];
+        for (int i = 1; i < count; i++) {
+            double proposed = currentWeight + allWeights[i];
+            double q0 = passed / total;
+            double q2 = (passed + proposed) / total;
+            // Centroids may hold more weight in the middle of the distribution than at its ends
+            double limit = total * 4 * Math.min(q0 * (1 - q0), q2 * (1 - q2)) / compression;
+            if (proposed <= limit) {
+                currentMean += (allMeans[i] - currentMean) * allWeights[i] / proposed;
+                currentWeight = proposed;
+            }
+            else {
+                merged = emit(merged, currentMean, currentWeight);
+                passed += currentWeight;
+                currentMean = allMeans[i];
+                currentWeight = allWeights[i];
+            }
+        }
+        centroids = emit(merged, currentMean, currentWeight);
+    }
+
+    private int emit(int index, double mean, double weight) {
+        if (index == means.length) {
+            means = Arrays.copyOf(means, index * 2);
+            weights = Arrays.copyOf(weights, index * 2);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+
+    /**
+     * Sorts the two arrays together by mean, a quicksort over the primitive arrays.
+     */
+    private static void sortByMean(double[] means, double[] weights, int count) {
+        sort(means, weights, 0, count - 1);
+    }
+
+    private static void sort(double[] means, double[] weights, int low, int high) {
+        while (low < high) {
+            double pivot = means[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (means[i] < pivot) {
+                    i++;
+                }
+                while (means[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(means, weights, i++, j--);
+                }
+            }
+            // Recurse into the smaller half and loop on the larger one to bound the stack depth
+            if (j - low < high - i) {
+                sort(means, weights, low, j);
+                low = i;
+            }
+            else {
+                sort(means, weights, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static void swap(double[] means, double[] weights, int a, int b) {
+        double mean = means[a];
+        means[a] = means[b];
+        means[b] = mean;
+        double weight = weights[a];
+        weights[a] = weights[b];
+        weights[b] = weight;
+    }
+
+    private static double interpolate(double from, double to, double fraction) {
+        return from + (to - from) * Math.max(0, Math.min(1, fraction));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+/**
+ * Collects the values passed to a user-defined aggregation one at a time into primitive chunks, and
+ * hands them to the aggregation state a whole chunk at a time.
+ * <p>
+ * Cypher calls the update method of an aggregation once per row. Buffering the values lets the state
+ * run its update as a tight loop over a primitive array, instead of once per boxed value.
+ */
+public final class ValueChunks {
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private ValueChunks() {
+    }
+
+    public interface LongChunkConsumer {
+        void accept(long[] values, int length);
+    }
+
+    public interface DoubleChunkConsumer {
+        void accept(double[] values, int length);
+    }
+
+    public static final class Longs {
+        private final long[] chunk;
+        private final LongChunkConsumer consumer;
+        private int size;
+
+        public Longs(int chunkSize, LongChunkConsumer consumer) {
+            this.chunk = new long[chunkSize];
+            this.consumer = consumer;
+        }
+
+        public void add(long value) {
+            chunk[size++] = value;
+            if (size == chunk.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Hands any buffered values to the consumer, which must happen before reading the result.
+         */
+        public void flush() {
+            if (size > 0) {
+                consumer.accept(chunk, size);
+                size = 0;
+            }
+        }
+    }
+
+    public static final class Doubles {
+        private final double[] chunk;
+        private final DoubleChunkConsumer consumer;
+        private int size;
+
+        public Doubles(int chunkSize, DoubleChunkConsumer consumer) {
+            this.chunk = new double[chunkSize];
+            this.consumer = consumer;
+        }
+
+        public void add(double value) {
+            chunk[size++] = value;
+            if (size == chunk.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Hands any buffered values to the consumer, which must happen before reading the result.
+         */
+        public void flush() {
+            if (size > 0) {
+                consumer.accept(chunk, size);
+                size = 0;
+            }
+        }
+    }
+}
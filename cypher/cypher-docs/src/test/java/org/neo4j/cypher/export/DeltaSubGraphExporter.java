@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.export;
+
+import static org.neo4j.cypher.export.SubGraphExporter.quote;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.spatial.Point;
+
+/**
+ * Records the changes committed to a database in a compact change log, so that they can be exported as deltas
+ * instead of dumping the whole graph again with {@link SubGraphExporter}.
+ * <p>
+ * Every committed transaction advances the checkpoint by one. {@link #export(PrintWriter, long)} and
+ * {@link #write(DataOutput, long)} emit the changes committed after a given checkpoint, as Cypher statements or in a
+ * binary form. The Cypher statements address entities by their id in the source database, stored in the
+ * {@link #SOURCE_ID} property, so they apply to a copy made with {@link #exportSnapshot(Transaction, PrintWriter)}
+ * at the checkpoint they are exported since, and to the copy that applying them produced after that. The copied nodes
+ * carry the {@link #SOURCE_LABEL} and both nodes and relationships are matched through an index on their
+ * {@link #SOURCE_ID}, so applying a change doesn't scan the whole graph. The statements that create these indexes come
+ * first and have to be run in their own transactions, before the ones that change the data.
+ * <p>
+ * The log keeps at most {@code capacity} changes. The oldest transactions are dropped when it fills up, and the
+ * changes after a checkpoint can only be exported as long as all of them are still in the log.
+ */
+public class DeltaSubGraphExporter {
+    /**
+     * The property that holds the id an entity has in the source database, in the copies deltas are applied to.
+     */
+    public static final String SOURCE_ID = "__sourceId";
+    /**
+     * The label of every node in the copies deltas are applied to, that their {@link #SOURCE_ID} is indexed for.
+     */
+    public static final Label SOURCE_LABEL = Label.label("__Source");
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final DatabaseManagementService managementService;
+    private final String databaseName;
+    private final int capacity;
+    private final Listener listener = new Listener();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private long checkpoint;
+    private long forgotten;
+
+    private DeltaSubGraphExporter(DatabaseManagementService managementService, String databaseName, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        this.managementService = managementService;
+        this.databaseName = databaseName;
+        this.capacity = capacity;
+    }
+
+    public static DeltaSubGraphExporter register(DatabaseManagementService managementService, String databaseName) {
+        return register(managementService, databaseName, DEFAULT_CAPACITY);
+    }
+
+    public static DeltaSubGraphExporter register(DatabaseManagementService managementService, String databaseName,
+            int capacity) {
+        DeltaSubGraphExporter exporter = new DeltaSubGraphExporter(managementService, databaseName, capacity);
+        managementService.registerTransactionEventListener(databaseName, exporter.listener);
+        return exporter;
+    }
+
+    public void unregister() {
+        managementService.unregisterTransactionEventListener(databaseName, listener);
+    }
+
+    /**
+     * Export the whole graph the given transaction sees, with the {@link #SOURCE_ID} of every entity, as the copy
+     * that deltas are applied to. Take it while nothing is written to the database, at the current
+     * {@link #checkpoint()}.
+     */
+    public static void exportSnapshot(Transaction transaction, PrintWriter out) {
+        out.print(nodeIndex());
+        out.println(";");
+        for (RelationshipType type : transaction.getAllRelationshipTypesInUse()) {
+            out.print(relationshipIndex(type.name()));
+            out.println(";");
+        }
+        new SubGraphExporter(new WithSourceIds(DatabaseSubGraph.from(transaction))).export(out);
+    }
+
+    /**
+     * @return the checkpoint of the last committed transaction that has been recorded.
+     */
+    public synchronized long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Forget the changes up to and including the given checkpoint, they can no longer be exported.
+     */
+    public synchronized void truncate(long checkpoint) {
+        while (!changes.isEmpty() && changes.peekFirst().checkpoint <= checkpoint) {
+            changes.pollFirst();
+        }
+        forgotten = Math.max(forgotten, Math.min(checkpoint, this.checkpoint));
+    }
+
+    public synchronized long export(PrintWriter out, long since) {
+        checkAvailable(since);
+        // Relationships of types the snapshot didn't have need an index before they are matched
+        TreeSet<String> types = new TreeSet<>();
+        for (Change change : changes) {
+            if (change.checkpoint > since && change.type != null) {
+                types.add(change.type);
+            }
+        }
+        for (String type : types) {
+            out.print(relationshipIndex(type));
+            out.println(";");
+        }
+        long count = 0;
+        for (Change change : changes) {
+            if (change.checkpoint > since) {
+                out.print(change.toCypher());
+                out.println(";");
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized long write(DataOutput out, long since) throws IOException {
+        checkAvailable(since);
+        long count = 0;
+        for (Change change : changes) {
+            if (change.checkpoint > since) {
+                count++;
+            }
+        }
+        out.writeLong(count);
+        for (Change change : changes) {
+            if (change.checkpoint > since) {
+                change.write(out);
+            }
+        }
+        return count;
+    }
+
+    private static String nodeIndex() {
+        return "create index if not exists for (n:" + quote(SOURCE_LABEL.name()) + ") on (n." + quote(SOURCE_ID) + ")";
+    }
+
+    private static String relationshipIndex(String type) {
+        return "create index if not exists for ()-[r:" + quote(type) + "]-() on (r." + quote(SOURCE_ID) + ")";
+    }
+
+    private void checkAvailable(long since) {
+        if (since < forgotten) {
+            throw new IllegalStateException("The changes after checkpoint " + since + " are no longer recorded, only "
+                    + "the ones after checkpoint " + forgotten + " are");
+        }
+    }
+
+    private synchronized void committed(List<Change> state) {
+        checkpoint++;
+        for (Change change : state) {
+            change.checkpoint = checkpoint;
+            changes.addLast(change);
+        }
+        while (changes.size() > capacity) {
+            // Only drop whole transactions, a partial one can't be applied
+            truncate(changes.peekFirst().checkpoint);
+        }
+    }
+
+    private final class Listener implements TransactionEventListener<List<Change>> {
+        @Override
+        public List<Change> beforeCommit(TransactionData data, Transaction transaction,
+                GraphDatabaseService databaseService) {
+            // Relationship end points and types have to be read while the transaction is still open
+            List<Change> result = new ArrayList<>();
+            for (Node node : data.createdNodes()) {
+                result.add(new Change(Kind.CREATE_NODE, node.getId()));
+            }
+            for (Relationship relationship : data.createdRelationships()) {
+                result.add(new Change(Kind.CREATE_RELATIONSHIP, relationship.getId(), relationship.getStartNodeId(),
+                        relationship.getEndNodeId(), relationship.getType().name(), null, null));
+            }
+            for (LabelEntry entry : data.assignedLabels()) {
+                result.add(new Change(Kind.ADD_LABEL, entry.node().getId(), entry.label().name(), null));
+            }
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                result.add(new Change(Kind.SET_NODE_PROPERTY, entry.entity().getId(), entry.key(), entry.value()));
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                result.add(new Change(Kind.SET_RELATIONSHIP_PROPERTY, entry.entity(), entry.key(), entry.value()));
+            }
+            for (LabelEntry entry : data.removedLabels()) {
+                if (!data.isDeleted(entry.node())) {
+                    result.add(new Change(Kind.REMOVE_LABEL, entry.node().getId(), entry.label().name(), null));
+                }
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                if (!data.isDeleted(entry.entity())) {
+                    result.add(new Change(Kind.REMOVE_NODE_PROPERTY, entry.entity().getId(), entry.key(), null));
+                }
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                if (!data.isDeleted(entry.entity())) {
+                    result.add(new Change(Kind.REMOVE_RELATIONSHIP_PROPERTY, entry.entity(), entry.key(), null));
+                }
+            }
+            for (Relationship relationship : data.deletedRelationships()) {
+                result.add(new Change(Kind.DELETE_RELATIONSHIP, relationship, null, null));
+            }
+            for (Node node : data.deletedNodes()) {
+                result.add(new Change(Kind.DELETE_NODE, node.getId()));
+            }
+            return result;
+        }
+
+        @Override
+        public void afterCommit(TransactionData data, List<Change> state, GraphDatabaseService databaseService) {
+            committed(state);
+        }
+
+        @Override
+        public void afterRollback(TransactionData data, List<Change> state, GraphDatabaseService databaseService) {
+        }
+    }
+
+    /**
+     * The whole database, with the id of every entity as an additional {@link #SOURCE_ID} property and the
+     * {@link #SOURCE_LABEL} on every node.
+     */
+    private static final class WithSourceIds implements SubGraph {
+        private final SubGraph graph;
+
+        WithSourceIds(SubGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Iterable<Node> getNodes() {
+            return graph.getNodes();
+        }
+
+        @Override
+        public Iterable<Relationship> getRelationships() {
+            return graph.getRelationships();
+        }
+
+        @Override
+        public boolean contains(Relationship relationship) {
+            return graph.contains(relationship);
+        }
+
+        @Override
+        public boolean mayOmitRelationships() {
+            return graph.mayOmitRelationships();
+        }
+
+        @Override
+        public Iterable<IndexDefinition> getIndexes() {
+            return graph.getIndexes();
+        }
+
+        @Override
+        public Iterable<ConstraintDefinition> getConstraints() {
+            return graph.getConstraints();
+        }
+
+        @Override
+        public Iterable<Label> getLabels(Node node) {
+            List<Label> labels = new ArrayList<>();
+            labels.add(SOURCE_LABEL);
+            graph.getLabels(node).forEach(labels::add);
+            return labels;
+        }
+
+        @Override
+        public Map<String,Object> getProperties(Entity entity) {
+            Map<String,Object> properties = new TreeMap<>(graph.getProperties(entity));
+            properties.put(SOURCE_ID, entity.getId());
+            return properties;
+        }
+    }
+
+    enum Kind {
+        CREATE_NODE,
+        CREATE_RELATIONSHIP,
+        ADD_LABEL,
+        SET_NODE_PROPERTY,
+        SET_RELATIONSHIP_PROPERTY,
+        REMOVE_LABEL,
+        REMOVE_NODE_PROPERTY,
+        REMOVE_RELATIONSHIP_PROPERTY,
+        DELETE_RELATIONSHIP,
+        DELETE_NODE
+    }
+
+    static class Change {
+        private final Kind kind;
+        private final long id;
+        private final long start;
+        private final long end;
+        private final String type;
+        private final String name;
+        private final Object value;
+        private long checkpoint;
+
+        Change(Kind kind, long id) {
+            this(kind, id, -1, -1, null, null, null);
+        }
+
+        Change(Kind kind, long id, String name, Object value) {
+            this(kind, id, -1, -1, null, name, value);
+        }
+
+        Change(Kind kind, Relationship relationship, String name, Object value) {
+            this(kind, relationship.getId(), -1, -1, relationship.getType().name(), name, value);
+        }
+
+        Change(Kind kind, long id, long start, long end, String type, String name, Object value) {
+            this.kind = kind;
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.type = type;
+            this.name = name;
+            this.value = value;
+        }
+
+        String toCypher() {
+            switch (kind) {
+            case CREATE_NODE:
+                return "create " + node("", id);
+            case CREATE_RELATIONSHIP:
+                return "match " + node("s", start) + ", " + node("e", end)
+                        + " create (s)-[:" + quote(type) + " " + sourceId(id) + "]->(e)";
+            case ADD_LABEL:
+                return matchNode("n", id) + " set n:" + quote(name);
+            case SET_NODE_PROPERTY:
+                return matchNode("n", id) + " set n." + quote(name) + " = " + SubGraphExporter.toString(value);
+            case SET_RELATIONSHIP_PROPERTY:
+                return matchRelationship("r", id) + " set r." + quote(name) + " = " + SubGraphExporter.toString(value);
+            case REMOVE_LABEL:
+                return matchNode("n", id) + " remove n:" + quote(name);
+            case REMOVE_NODE_PROPERTY:
+                return matchNode("n", id) + " remove n." + quote(name);
+            case REMOVE_RELATIONSHIP_PROPERTY:
+                return matchRelationship("r", id) + " remove r." + quote(name);
+            case DELETE_RELATIONSHIP:
+                return matchRelationship("r", id) + " delete r";
+            case DELETE_NODE:
+                return matchNode("n", id) + " delete n";
+            default:
+                throw new IllegalStateException("Unknown change " + kind);
+            }
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeByte(kind.ordinal());
+            out.writeLong(checkpoint);
+            out.writeLong(id);
+            switch (kind) {
+            case CREATE_RELATIONSHIP:
+                out.writeLong(start);
+                out.writeLong(end);
+                writeString(out, type);
+                break;
+            case ADD_LABEL:
+            case REMOVE_LABEL:
+            case REMOVE_NODE_PROPERTY:
+                writeString(out, name);
+                break;
+            case REMOVE_RELATIONSHIP_PROPERTY:
+                writeString(out, type);
+                writeString(out, name);
+                break;
+            case SET_NODE_PROPERTY:
+                writeString(out, name);
+                writeValue(out, value);
+                break;
+            case SET_RELATIONSHIP_PROPERTY:
+                writeString(out, type);
+                writeString(out, name);
+                writeValue(out, value);
+                break;
+            case DELETE_RELATIONSHIP:
+                writeString(out, type);
+                break;
+            default:
+                break;
+            }
+        }
+
+        private static String sourceId(long id) {
+            return "{" + quote(SOURCE_ID) + ":" + id + "}";
+        }
+
+        private static String node(String variable, long id) {
+            return "(" + variable + ":" + quote(SOURCE_LABEL.name()) + " " + sourceId(id) + ")";
+        }
+
+        private static String matchNode(String variable, long id) {
+            return "match " + node(variable, id);
+        }
+
+        private String matchRelationship(String variable, long id) {
+            return "match ()-[" + variable + ":" + quote(type) + " " + sourceId(id) + "]->()";
+        }
+
+        /**
+         * Unlike {@link DataOutput#writeUTF(String)}, not limited to strings that encode to at most 64 KB.
+         */
+        private static void writeString(DataOutput out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static void writeValue(DataOutput out, Object value) throws IOException {
+            if (value instanceof String) {
+                out.writeByte('s');
+                writeString(out, (String) value);
+            }
+            else if (value instanceof Boolean) {
+                out.writeByte('z');
+                out.writeBoolean((Boolean) value);
+            }
+            else if (value instanceof Float || value instanceof Double) {
+                out.writeByte('d');
+                out.writeDouble(((Number) value).doubleValue());
+            }
+            else if (value instanceof Number) {
+                out.writeByte('j');
+                out.writeLong(((Number) value).longValue());
+            }
+            else if (value instanceof Character) {
+                out.writeByte('c');
+                out.writeChar((Character) value);
+            }
+            else if (value instanceof Point) {
+                Point point = (Point) value;
+                double[] coordinate = point.getCoordinate().getCoordinate();
+                out.writeByte('p');
+                out.writeInt(point.getCRS().getCode());
+                out.writeByte(coordinate.length);
+                for (double ordinate : coordinate) {
+                    out.writeDouble(ordinate);
+                }
+            }
+            else if (value instanceof TemporalAccessor) {
+                // The ISO-8601 form, with the type it parses back into
+                out.writeByte('t');
+                writeString(out, value.getClass().getSimpleName());
+                writeString(out, value.toString());
+            }
+            else if (value instanceof TemporalAmount) {
+                out.writeByte('D');
+                writeString(out, value.toString());
+            }
+            else if (value != null && value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                out.writeByte('[');
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(out, Array.get(value, i));
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Not a property value: " + value);
+            }
+        }
+    }
+}
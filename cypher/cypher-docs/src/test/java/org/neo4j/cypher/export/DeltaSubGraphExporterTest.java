@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class DeltaSubGraphExporterTest {
+    private DatabaseManagementService sourceService;
+    private DatabaseManagementService targetService;
+    private GraphDatabaseService source;
+    private GraphDatabaseService target;
+    private DeltaSubGraphExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        sourceService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        targetService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        source = sourceService.database(DEFAULT_DATABASE_NAME);
+        target = targetService.database(DEFAULT_DATABASE_NAME);
+        // Leave the token lookup indexes out of the snapshot, the copy has its own
+        try (Transaction tx = source.beginTx()) {
+            tx.schema().getIndexes().forEach(IndexDefinition::drop);
+            tx.commit();
+        }
+        execute(source, "CREATE (:Person {name: 'Alice'})-[:KNOWS]->(:Person {name: 'Bob'}), (:Person {name: 'Dave'})");
+        exporter = DeltaSubGraphExporter.register(sourceService, DEFAULT_DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exporter.unregister();
+        sourceService.shutdown();
+        targetService.shutdown();
+    }
+
+    @Test
+    void appliesDeltasToACopyWhoseIdsDiffer() {
+        // Use up some ids, so that entities get other ids in the copy than in the source
+        execute(target, "UNWIND range(1, 10) AS i CREATE ()-[:TEMPORARY]->()");
+        execute(target, "MATCH (n) DETACH DELETE n");
+        StringWriter snapshot = new StringWriter();
+        try (Transaction tx = source.beginTx()) {
+            DeltaSubGraphExporter.exportSnapshot(tx, new PrintWriter(snapshot));
+        }
+        long checkpoint = exporter.checkpoint();
+        apply(target, snapshot.toString());
+
+        execute(source, "MATCH (bob {name: 'Bob'}) CREATE (bob)-[:KNOWS {since: 2020}]->(:Person {name: 'Carol'})");
+        execute(source, "MATCH (alice {name: 'Alice'}), (bob {name: 'Bob'}) SET alice.age = 42, alice:Admin "
+                + "REMOVE bob:Person");
+        execute(source, "MATCH ({name: 'Alice'})-[r]->({name: 'Bob'}) DELETE r");
+        execute(source, "MATCH (dave {name: 'Dave'}) DELETE dave");
+        StringWriter deltas = new StringWriter();
+        long changes = exporter.export(new PrintWriter(deltas), checkpoint);
+        apply(target, deltas.toString());
+
+        assertEquals(4, exporter.checkpoint() - checkpoint);
+        assertEquals(10, changes);
+        assertEquals(graph(source), graph(target));
+        assertEquals(List.of("Alice:[Admin, Person]:42", "Bob-KNOWS->Carol:2020", "Bob:[]:null",
+                "Carol:[Person]:null"), graph(target));
+    }
+
+    @Test
+    void writesEveryKindOfPropertyValue() throws IOException {
+        long checkpoint = exporter.checkpoint();
+        execute(source, "CREATE ({string: 'a', long: 1, double: 0.5, boolean: true, longs: [1, 2], strings: ['a'], "
+                + "date: date('2022-10-19'), dateTime: datetime('2022-10-19T12:00:00Z'), time: localtime('12:00'), "
+                + "duration: duration('P1DT2H'), point: point({x: 1.0, y: 2.0})})");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long changes = exporter.write(new DataOutputStream(bytes), checkpoint);
+
+        assertEquals(12, changes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(changes, in.readLong());
+        }
+    }
+
+    @Test
+    void matchesThroughTheSourceIdIndexes() {
+        StringWriter snapshot = new StringWriter();
+        try (Transaction tx = source.beginTx()) {
+            DeltaSubGraphExporter.exportSnapshot(tx, new PrintWriter(snapshot));
+        }
+        long checkpoint = exporter.checkpoint();
+        apply(target, snapshot.toString());
+        execute(source, "MATCH (alice {name: 'Alice'})-[r:KNOWS]->() SET r.since = 2020, alice.age = 42 "
+                + "CREATE (alice)-[:LIKES]->(:Person {name: 'Carol'})");
+        StringWriter deltas = new StringWriter();
+        exporter.export(new PrintWriter(deltas), checkpoint);
+        apply(target, deltas.toString());
+
+        assertTrue(snapshot.toString().contains("create index if not exists for (n:`__Source`) on (n.`__sourceId`)"));
+        assertTrue(snapshot.toString().contains("create index if not exists for ()-[r:`KNOWS`]-() on (r.`__sourceId`)"));
+        assertTrue(deltas.toString().contains("create index if not exists for ()-[r:`LIKES`]-() on (r.`__sourceId`)"));
+        assertTrue(deltas.toString().contains("match (n:`__Source` {`__sourceId`:"));
+        assertTrue(deltas.toString().contains("match ()-[r:`KNOWS` {`__sourceId`:"));
+        assertEquals(graph(source), graph(target));
+        try (Transaction tx = target.beginTx()) {
+            assertEquals(4, Iterators.count(tx.findNodes(DeltaSubGraphExporter.SOURCE_LABEL)));
+        }
+    }
+
+    @Test
+    void writesStringsLongerThanSixtyFourKilobytes() throws IOException {
+        String value = "x".repeat(70_000);
+        long checkpoint = exporter.checkpoint();
+        try (Transaction tx = source.beginTx()) {
+            tx.createNode().setProperty("text", value);
+            tx.commit();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        exporter.write(new DataOutputStream(bytes), checkpoint);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(2, in.readLong());
+            // The created node: kind, checkpoint and id
+            in.readByte();
+            in.readLong();
+            in.readLong();
+            // The property: kind, checkpoint, id, key and value
+            in.readByte();
+            in.readLong();
+            in.readLong();
+            assertEquals("text", readString(in));
+            assertEquals('s', in.readByte());
+            assertEquals(value, readString(in));
+        }
+    }
+
+    @Test
+    void onlyKeepsTheMostRecentTransactionsThatFit() {
+        exporter.unregister();
+        exporter = DeltaSubGraphExporter.register(sourceService, DEFAULT_DATABASE_NAME, 3);
+        long checkpoint = exporter.checkpoint();
+
+        // Two changes each, creating the node and setting its property
+        execute(source, "CREATE ({name: 'first'})");
+        execute(source, "CREATE ({name: 'second'})");
+
+        assertThrows(IllegalStateException.class, () -> exporter.export(new PrintWriter(new StringWriter()), checkpoint));
+        assertEquals(2, exporter.export(new PrintWriter(new StringWriter()), checkpoint + 1));
+    }
+
+    @Test
+    void cannotExportTruncatedChanges() {
+        long checkpoint = exporter.checkpoint();
+        execute(source, "CREATE ({name: 'first'})");
+        execute(source, "CREATE ({name: 'second'})");
+
+        exporter.truncate(checkpoint + 1);
+
+        assertThrows(IllegalStateException.class, () -> exporter.export(new PrintWriter(new StringWriter()), checkpoint));
+        assertEquals(0, exporter.export(new PrintWriter(new StringWriter()), checkpoint + 2));
+    }
+
+    private static List<String> graph(GraphDatabaseService db) {
+        List<String> result = new ArrayList<>();
+        try (Transaction tx = db.beginTx()) {
+            for (Node node : tx.getAllNodes()) {
+                List<String> labels = new ArrayList<>();
+                for (Label label : node.getLabels()) {
+                    // Only the copies carry the marker label
+                    if (!label.name().equals(DeltaSubGraphExporter.SOURCE_LABEL.name())) {
+                        labels.add(label.name());
+                    }
+                }
+                Collections.sort(labels);
+                result.add(node.getProperty("name") + ":" + labels + ":" + node.getProperty("age", null));
+            }
+            for (Relationship relationship : tx.getAllRelationships()) {
+                result.add(relationship.getStartNode().getProperty("name") + "-" + relationship.getType().name() + "->"
+                        + relationship.getEndNode().getProperty("name") + ":" + relationship.getProperty("since", null));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static void execute(GraphDatabaseService db, String query) {
+        try (Transaction tx = db.beginTx()) {
+            tx.execute(query).close();
+            tx.commit();
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Run the index statements each in their own transaction, as schema and data can't be changed together, and the
+     * rest in one.
+     */
+    private static void apply(GraphDatabaseService db, String statements) {
+        List<String> changes = new ArrayList<>();
+        for (String statement : statements.split(";\\R")) {
+            if (statement.isBlank()) {
+                continue;
+            }
+            if (statement.startsWith("create index")) {
+                execute(db, statement);
+            }
+            else {
+                changes.add(statement);
+            }
+        }
+        try (Transaction tx = db.beginTx()) {
+            for (String statement : changes) {
+                tx.execute(statement).close();
+            }
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.ConstraintType;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.IndexType;
+import org.neo4j.internal.helpers.collection.Iterables;
+
+/**
+ * A {@link SubGraph} that only exposes part of another sub graph, for partial exports.
+ * <p>
+ * Nodes can be restricted to a set of labels and relationships to a set of types, both can be narrowed down further
+ * with predicates. Relationships are only part of the view if both their end nodes are. Property key projections
+ * restrict which properties are read and exported, either for all entities or for nodes with a given label or
+ * relationships of a given type. An entity that no projection applies to keeps all its properties.
+ * <p>
+ * The sorted property keys to read are computed once per label set, or per relationship type, and then reused.
+ */
+public class FilteredSubGraph implements SubGraph {
+    private static final String[] ALL_PROPERTIES = new String[0];
+
+    private final SubGraph graph;
+    private final Set<String> labels;
+    private final Set<String> types;
+    private final Predicate<Node> nodeFilter;
+    private final Predicate<Relationship> relationshipFilter;
+    private final Set<String> propertyKeys;
+    private final Map<String,Set<String>> labelPropertyKeys;
+    private final Map<String,Set<String>> typePropertyKeys;
+    private final Map<String,String[]> nodeKeysByLabelSet = new ConcurrentHashMap<>();
+    private final Map<String,String[]> relationshipKeysByType = new ConcurrentHashMap<>();
+
+    private FilteredSubGraph(Builder builder) {
+        this.graph = builder.graph;
+        this.labels = builder.labels;
+        this.types = builder.types;
+        this.nodeFilter = builder.nodeFilter;
+        this.relationshipFilter = builder.relationshipFilter;
+        this.propertyKeys = builder.propertyKeys;
+        this.labelPropertyKeys = builder.labelPropertyKeys;
+        this.typePropertyKeys = builder.typePropertyKeys;
+    }
+
+    public static Builder filter(SubGraph graph) {
+        return new Builder(graph);
+    }
+
+    @Override
+    public Iterable<Node> getNodes() {
+        return Iterables.filter(this::includesNode, graph.getNodes());
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships() {
+        return Iterables.filter(this::contains, graph.getRelationships());
+    }
+
+    private boolean includesNode(Node node) {
+        if (labels != null) {
+            boolean found = false;
+            for (Label label : node.getLabels()) {
+                if (labels.contains(label.name())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return nodeFilter.test(node);
+    }
+
+    @Override
+    public boolean contains(Relationship relationship) {
+        if (types != null && !types.contains(relationship.getType().name())) {
+            return false;
+        }
+        return relationshipFilter.test(relationship)
+                && includesNode(relationship.getStartNode())
+                && includesNode(relationship.getEndNode())
+                && graph.contains(relationship);
+    }
+
+    @Override
+    public boolean mayOmitRelationships() {
+        return true;
+    }
+
+    @Override
+    public Iterable<IndexDefinition> getIndexes() {
+        return Iterables.filter(this::includesIndex, graph.getIndexes());
+    }
+
+    @Override
+    public Iterable<ConstraintDefinition> getConstraints() {
+        return Iterables.filter(this::includesConstraint, graph.getConstraints());
+    }
+
+    @Override
+    public Iterable<Label> getLabels(Node node) {
+        return graph.getLabels(node);
+    }
+
+    @Override
+    public Map<String,Object> getProperties(Entity entity) {
+        String[] keys = entity instanceof Node ? nodeKeys((Node) entity) : relationshipKeys((Relationship) entity);
+        if (keys == ALL_PROPERTIES) {
+            return graph.getProperties(entity);
+        }
+        if (keys.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String,Object> values = entity.getProperties(keys);
+        Map<String,Object> result = new LinkedHashMap<>(values.size() * 2);
+        for (String key : keys) {
+            Object value = values.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private boolean includesIndex(IndexDefinition index) {
+        if (index.getIndexType() == IndexType.LOOKUP) {
+            return true;
+        }
+        if (index.isNodeIndex()) {
+            return labels == null || allContained(labels, index.getLabels(), Label::name);
+        }
+        return types == null || allContained(types, index.getRelationshipTypes(), RelationshipType::name);
+    }
+
+    private boolean includesConstraint(ConstraintDefinition constraint) {
+        if (constraint.isConstraintType(ConstraintType.RELATIONSHIP_PROPERTY_EXISTENCE)) {
+            return types == null || types.contains(constraint.getRelationshipType().name());
+        }
+        return labels == null || labels.contains(constraint.getLabel().name());
+    }
+
+    private static <T> boolean allContained(Set<String> names, Iterable<T> tokens, Function<T,String> name) {
+        for (T token : tokens) {
+            if (!names.contains(name.apply(token))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String[] nodeKeys(Node node) {
+        if (propertyKeys == null && labelPropertyKeys.isEmpty()) {
+            return ALL_PROPERTIES;
+        }
+        List<String> labelNames = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labelNames.add(label.name());
+        }
+        Collections.sort(labelNames);
+        return nodeKeysByLabelSet.computeIfAbsent(String.join(":", labelNames), ignored -> {
+            Set<String> keys = null;
+            for (String label : labelNames) {
+                keys = union(keys, labelPropertyKeys.get(label));
+            }
+            return sorted(union(keys, propertyKeys));
+        });
+    }
+
+    private String[] relationshipKeys(Relationship relationship) {
+        if (propertyKeys == null && typePropertyKeys.isEmpty()) {
+            return ALL_PROPERTIES;
+        }
+        String type = relationship.getType().name();
+        return relationshipKeysByType.computeIfAbsent(type, ignored ->
+                sorted(union(union(null, typePropertyKeys.get(type)), propertyKeys)));
+    }
+
+    private static Set<String> union(Set<String> keys, Set<String> more) {
+        if (more == null) {
+            return keys;
+        }
+        Set<String> result = keys == null ? new TreeSet<>() : keys;
+        result.addAll(more);
+        return result;
+    }
+
+    private static String[] sorted(Set<String> keys) {
+        if (keys == null) {
+            return ALL_PROPERTIES;
+        }
+        return keys.toArray(new String[keys.size()]);
+    }
+
+    public static class Builder {
+        private final SubGraph graph;
+        private Set<String> labels;
+        private Set<String> types;
+        private Predicate<Node> nodeFilter = node -> true;
+        private Predicate<Relationship> relationshipFilter = relationship -> true;
+        private Set<String> propertyKeys;
+        private final Map<String,Set<String>> labelPropertyKeys = new HashMap<>();
+        private final Map<String,Set<String>> typePropertyKeys = new HashMap<>();
+
+        private Builder(SubGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Only include nodes that have at least one of the given labels.
+         */
+        public Builder labels(String... labels) {
+            this.labels = new HashSet<>(Arrays.asList(labels));
+            return this;
+        }
+
+        /**
+         * Only include relationships of the given types.
+         */
+        public Builder relationshipTypes(String... types) {
+            this.types = new HashSet<>(Arrays.asList(types));
+            return this;
+        }
+
+        public Builder nodes(Predicate<Node> filter) {
+            this.nodeFilter = nodeFilter.and(filter);
+            return this;
+        }
+
+        public Builder relationships(Predicate<Relationship> filter) {
+            this.relationshipFilter = relationshipFilter.and(filter);
+            return this;
+        }
+
+        /**
+         * Only export the given property keys, for all nodes and relationships.
+         */
+        public Builder propertyKeys(String... keys) {
+            this.propertyKeys = new HashSet<>(Arrays.asList(keys));
+            return this;
+        }
+
+        /**
+         * Only export the given property keys for nodes with the given label, in addition to any other projection
+         * that applies to the node.
+         */
+        public Builder propertyKeys(Label label, String... keys) {
+            labelPropertyKeys.computeIfAbsent(label.name(), ignored -> new HashSet<>()).addAll(Arrays.asList(keys));
+            return this;
+        }
+
+        /**
+         * Only export the given property keys for relationships of the given type, in addition to any projection
+         * for all entities.
+         */
+        public Builder propertyKeys(RelationshipType type, String... keys) {
+            typePropertyKeys.computeIfAbsent(type.name(), ignored -> new HashSet<>()).addAll(Arrays.asList(keys));
+            return this;
+        }
+
+        public FilteredSubGraph build() {
+            return new FilteredSubGraph(this);
+        }
+    }
+}
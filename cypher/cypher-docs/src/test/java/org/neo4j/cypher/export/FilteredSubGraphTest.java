@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.internal.helpers.collection.Iterables.asList;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.ConstraintType;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class FilteredSubGraphTest {
+    private static final Label PERSON = Label.label("Person");
+    private static final Label COMPANY = Label.label("Company");
+
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+    private long alice;
+    private long bob;
+    private long acme;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+        try (Transaction tx = db.beginTx()) {
+            // Leave the token lookup indexes out of the exports
+            tx.schema().getIndexes().forEach(IndexDefinition::drop);
+            tx.commit();
+        }
+        try (Transaction tx = db.beginTx()) {
+            Node aliceNode = tx.createNode(PERSON);
+            aliceNode.setProperty("name", "Alice");
+            aliceNode.setProperty("age", 42);
+            Node bobNode = tx.createNode(PERSON);
+            bobNode.setProperty("name", "Bob");
+            Node acmeNode = tx.createNode(COMPANY);
+            acmeNode.setProperty("name", "Acme");
+            aliceNode.createRelationshipTo(bobNode, RelationshipType.withName("KNOWS")).setProperty("since", 2010);
+            aliceNode.createRelationshipTo(acmeNode, RelationshipType.withName("WORKS_AT"));
+            alice = aliceNode.getId();
+            bob = bobNode.getId();
+            acme = acmeNode.getId();
+            tx.commit();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void exportsEverythingWithoutAFilter() {
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(
+                    "create (_" + alice + ":`Person` {`age`:42, `name`:\"Alice\"})\n"
+                            + "create (_" + bob + ":`Person` {`name`:\"Bob\"})\n"
+                            + "create (_" + acme + ":`Company` {`name`:\"Acme\"})\n"
+                            + "create (_" + alice + ")-[:`KNOWS` {`since`:2010}]->(_" + bob + ")\n"
+                            + "create (_" + alice + ")-[:`WORKS_AT`]->(_" + acme + ")\n"
+                            + ";\n",
+                    export(DatabaseSubGraph.from(tx)));
+        }
+    }
+
+    @Test
+    void leavesOutRelationshipsToNodesThatAreFilteredOut() {
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(
+                    "create (_" + alice + ":`Person` {`age`:42, `name`:\"Alice\"})\n"
+                            + "create (_" + bob + ":`Person` {`name`:\"Bob\"})\n"
+                            + "create (_" + alice + ")-[:`KNOWS` {`since`:2010}]->(_" + bob + ")\n"
+                            + ";\n",
+                    export(FilteredSubGraph.filter(DatabaseSubGraph.from(tx)).labels("Person").build()));
+        }
+    }
+
+    @Test
+    void filtersRelationshipsByTypeAndPredicate() {
+        try (Transaction tx = db.beginTx()) {
+            SubGraph graph = FilteredSubGraph.filter(DatabaseSubGraph.from(tx))
+                    .relationshipTypes("KNOWS", "WORKS_AT")
+                    .relationships(relationship -> relationship.hasProperty("since"))
+                    .nodes(node -> !node.hasLabel(COMPANY))
+                    .build();
+
+            assertEquals(
+                    "create (_" + alice + ":`Person` {`age`:42, `name`:\"Alice\"})\n"
+                            + "create (_" + bob + ":`Person` {`name`:\"Bob\"})\n"
+                            + "create (_" + alice + ")-[:`KNOWS` {`since`:2010}]->(_" + bob + ")\n"
+                            + ";\n",
+                    export(graph));
+        }
+    }
+
+    @Test
+    void projectsPropertyKeys() {
+        try (Transaction tx = db.beginTx()) {
+            SubGraph graph = FilteredSubGraph.filter(DatabaseSubGraph.from(tx))
+                    .propertyKeys("name")
+                    .propertyKeys(PERSON, "age")
+                    .propertyKeys(RelationshipType.withName("KNOWS"))
+                    .build();
+
+            assertEquals(
+                    "create (_" + alice + ":`Person` {`age`:42, `name`:\"Alice\"})\n"
+                            + "create (_" + bob + ":`Person` {`name`:\"Bob\"})\n"
+                            + "create (_" + acme + ":`Company` {`name`:\"Acme\"})\n"
+                            + "create (_" + alice + ")-[:`KNOWS`]->(_" + bob + ")\n"
+                            + "create (_" + alice + ")-[:`WORKS_AT`]->(_" + acme + ")\n"
+                            + ";\n",
+                    export(graph));
+        }
+    }
+
+    @Test
+    void leavesOutRelationshipsOfAWrappedFilteredGraph() {
+        try (Transaction tx = db.beginTx()) {
+            SubGraph filtered = FilteredSubGraph.filter(DatabaseSubGraph.from(tx)).relationshipTypes("KNOWS").build();
+
+            assertEquals(
+                    "create (_" + alice + ")-[:`KNOWS` {`since`:2010}]->(_" + bob + ")\n",
+                    export(new Forwarding(filtered)).lines()
+                            .filter(line -> line.contains("]->"))
+                            .map(line -> line + "\n")
+                            .collect(Collectors.joining()));
+        }
+    }
+
+    @Test
+    void filtersRelationshipConstraintsByType() {
+        ConstraintDefinition knowsExists = (ConstraintDefinition) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ConstraintDefinition.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "isConstraintType":
+                        return args[0] == ConstraintType.RELATIONSHIP_PROPERTY_EXISTENCE;
+                    case "getRelationshipType":
+                        return RelationshipType.withName("KNOWS");
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "KNOWS existence constraint";
+                    default:
+                        throw new IllegalStateException("Not a node constraint");
+                    }
+                });
+        SubGraph graph = new Forwarding(null) {
+            @Override
+            public Iterable<ConstraintDefinition> getConstraints() {
+                return List.of(knowsExists);
+            }
+        };
+
+        assertEquals(List.of(knowsExists),
+                asList(FilteredSubGraph.filter(graph).labels("Person").build().getConstraints()));
+        assertEquals(List.of(knowsExists),
+                asList(FilteredSubGraph.filter(graph).relationshipTypes("KNOWS").build().getConstraints()));
+        assertEquals(List.of(),
+                asList(FilteredSubGraph.filter(graph).relationshipTypes("WORKS_AT").build().getConstraints()));
+    }
+
+    private static String export(SubGraph graph) {
+        StringWriter out = new StringWriter();
+        new SubGraphExporter(graph).export(new PrintWriter(out));
+        return out.toString().replace(System.lineSeparator(), "\n");
+    }
+
+    /**
+     * Wraps another graph, the way decorators like the delta exporter's do.
+     */
+    private static class Forwarding implements SubGraph {
+        private final SubGraph graph;
+
+        Forwarding(SubGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Iterable<Node> getNodes() {
+            return graph.getNodes();
+        }
+
+        @Override
+        public Iterable<Relationship> getRelationships() {
+            return graph.getRelationships();
+        }
+
+        @Override
+        public boolean contains(Relationship relationship) {
+            return graph.contains(relationship);
+        }
+
+        @Override
+        public boolean mayOmitRelationships() {
+            return graph.mayOmitRelationships();
+        }
+
+        @Override
+        public Iterable<IndexDefinition> getIndexes() {
+            return graph.getIndexes();
+        }
+
+        @Override
+        public Iterable<ConstraintDefinition> getConstraints() {
+            return graph.getConstraints();
+        }
+    }
+}
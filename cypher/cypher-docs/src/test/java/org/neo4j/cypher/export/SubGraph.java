@@ -19,6 +19,10 @@
  */
 package org.neo4j.cypher.export;
 
+import java.util.Map;
+import java.util.TreeMap;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
@@ -34,4 +38,26 @@ public interface SubGraph {
     Iterable<IndexDefinition> getIndexes();
 
     Iterable<ConstraintDefinition> getConstraints();
+
+    /**
+     * Whether {@link #contains(Relationship)} may be false for a relationship between two nodes of this graph.
+     * Exporters only check each relationship when it is, graphs that wrap another one should forward it.
+     */
+    default boolean mayOmitRelationships() {
+        return false;
+    }
+
+    /**
+     * The labels of the given node that should be exported.
+     */
+    default Iterable<Label> getLabels(Node node) {
+        return node.getLabels();
+    }
+
+    /**
+     * The properties of the given entity that should be exported, in the order they should be written.
+     */
+    default Map<String,Object> getProperties(Entity entity) {
+        return new TreeMap<>(entity.getAllProperties());
+    }
 }
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
@@ -38,13 +39,14 @@ import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.ConstraintType;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.IndexType;
-import org.neo4j.internal.helpers.collection.Iterables;
 
 public class SubGraphExporter {
     private final SubGraph graph;
+    private final boolean filtered;
 
     public SubGraphExporter(SubGraph graph) {
         this.graph = graph;
+        this.filtered = graph.mayOmitRelationships();
     }
 
     public void export(PrintWriter out) {
@@ -152,12 +154,12 @@ public class SubGraphExporter {
         return result;
     }
 
-    private static String quote(String id) {
+    static String quote(String id) {
         return "`" + id + "`";
     }
 
     private String labelString(Node node) {
-        Iterator<Label> labels = node.getLabels().iterator();
+        Iterator<Label> labels = graph.getLabels(node).iterator();
         if (!labels.hasNext()) {
             return "";
         }
@@ -192,6 +194,9 @@ public class SubGraphExporter {
         long relationships = 0;
         for (Node node : graph.getNodes()) {
             for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                if (filtered && !graph.contains(rel)) {
+                    continue;
+                }
                 appendRelationship(out, rel);
                 relationships++;
             }
@@ -231,30 +236,28 @@ public class SubGraphExporter {
     }
 
     private void formatProperties(PrintWriter out, Entity entity) {
-        if (!entity.getPropertyKeys().iterator().hasNext()) {
+        Map<String,Object> properties = graph.getProperties(entity);
+        if (properties.isEmpty()) {
             return;
         }
         out.print(" ");
-        final String propertyString = formatProperties(entity);
+        final String propertyString = formatProperties(properties);
         out.print(propertyString);
     }
 
-    private String formatProperties(Entity entity) {
+    private String formatProperties(Map<String,Object> properties) {
         StringBuilder result = new StringBuilder();
-        List<String> keys = Iterables.asList(entity.getPropertyKeys());
-        Collections.sort(keys);
-        for (String prop : keys) {
+        for (Map.Entry<String,Object> property : properties.entrySet()) {
             if (result.length() > 0) {
                 result.append(", ");
             }
-            result.append(quote(prop)).append(':');
-            Object value = entity.getProperty(prop);
-            result.append(toString(value));
+            result.append(quote(property.getKey())).append(':');
+            result.append(toString(property.getValue()));
         }
         return "{" + result + "}";
     }
 
-    private String toString(Iterator<?> iterator) {
+    private static String toString(Iterator<?> iterator) {
         StringBuilder result = new StringBuilder();
         while (iterator.hasNext()) {
             if (result.length() > 0) {
@@ -266,7 +269,7 @@ public class SubGraphExporter {
         return "[" + result + "]";
     }
 
-    private String arrayToString(Object value) {
+    private static String arrayToString(Object value) {
         StringBuilder result = new StringBuilder();
         int length = Array.getLength(value);
         for (int i = 0; i < length; i++) {
@@ -282,7 +285,7 @@ public class SubGraphExporter {
         return "\"" + value.replaceAll("\\\\", "\\\\\\\\").replaceAll("\"", "\\\\\"") + "\"";
     }
 
-    private String toString(Object value) {
+    static String toString(Object value) {
         if (value == null) {
             return "null";
         }
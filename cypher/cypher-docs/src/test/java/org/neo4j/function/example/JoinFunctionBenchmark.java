@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link JoinFunction#join(List, String)} with {@link StreamingJoinFunction#join(List, String, int)},
+ * with and without a maximum length, on lists of random strings, reporting the average time per join.
+ * <p>
+ * The name doesn't match the test patterns of the build, so it only runs when asked for, e.g. with
+ * {@code mvn test -Dtest=JoinFunctionBenchmark}.
+ */
+@Tag("benchmark")
+class JoinFunctionBenchmark {
+    private static final int[] LIST_SIZES = {10, 1_000, 100_000};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 1_000;
+    private static final int MAX_LENGTH = 1_000;
+
+    private static volatile int sink;
+
+    @Test
+    void compareJoins() {
+        JoinFunction joinFunction = new JoinFunction();
+        for (int size : LIST_SIZES) {
+            List<String> strings = randomStrings(size);
+            assertEquals(joinFunction.join(strings, ","), StreamingJoinFunction.join(strings, ",", Integer.MAX_VALUE));
+
+            run("join", size, () -> joinFunction.join(strings, ","));
+            run("streaming", size, () -> StreamingJoinFunction.join(strings, ",", Integer.MAX_VALUE));
+            run("streaming, max " + MAX_LENGTH, size, () -> StreamingJoinFunction.join(strings, ",", MAX_LENGTH));
+        }
+    }
+
+    private static void run(String name, int size, Supplier<String> join) {
+        int iterations = Math.max(10, ITERATIONS * 100 / size);
+        for (int i = 0; i < Math.max(10, WARMUP_ITERATIONS * 100 / size); i++) {
+            sink += join.get().length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += join.get().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %7d strings %12.0f ns/op%n", name, size, (double) elapsed / iterations);
+    }
+
+    private static List<String> randomStrings(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            char[] chars = new char[random.nextInt(1, 20)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) random.nextInt('a', 'z' + 1);
+            }
+            strings.add(new String(chars));
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class NumericAggregationsTest {
+    @Test
+    void sumAcrossChunksAndMergedStates() {
+        NumericAggregations.LongSumAggregator aggregator = new NumericAggregations().longSum();
+        for (long i = 1; i <= 10_000; i++) {
+            aggregator.add(i);
+        }
+        aggregator.add(null);
+        assertEquals(50_005_000L, aggregator.result());
+
+        LongSum left = new LongSum();
+        LongSum right = new LongSum();
+        left.add(new long[] {1, 2, 3}, 3);
+        right.add(new long[] {4, 5}, 2);
+        left.merge(right);
+        assertEquals(15, left.sum());
+
+        LongSum overflowing = new LongSum();
+        assertThrows(ArithmeticException.class, () -> overflowing.add(new long[] {Long.MAX_VALUE, 1}, 2));
+    }
+
+    @Test
+    void histogramCountsPowerOfTwoBuckets() {
+        NumericAggregations.Log2HistogramAggregator aggregator = new NumericAggregations().log2Histogram();
+        for (long value : new long[] {0, 1, 2, 3, 4, 7, 8}) {
+            aggregator.add(value);
+        }
+        assertEquals(List.of(1L, 1L, 2L, 2L, 1L), aggregator.result());
+    }
+
+    @Test
+    void estimateDistinctValuesAcrossMergedStates() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        long[] hashes = new long[1000];
+        for (int chunk = 0; chunk < 100; chunk++) {
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = HyperLogLog.hash(chunk * hashes.length + i);
+            }
+            (chunk % 2 == 0 ? left : right).add(hashes, hashes.length);
+            // Seen again, which must not count
+            left.add(hashes, hashes.length);
+        }
+        left.merge(right);
+        assertEquals(100_000, left.estimate(), 100_000 * 0.03);
+
+        NumericAggregations.ApproxDistinctAggregator aggregator = new NumericAggregations().approxDistinct();
+        for (int i = 0; i < 10; i++) {
+            aggregator.add("value" + (i % 5));
+        }
+        assertEquals(5L, aggregator.result());
+    }
+
+    @Test
+    void hashEqualCypherValuesTheSame() {
+        long one = NumericAggregations.ApproxDistinctAggregator.hash(1L);
+        assertEquals(one, NumericAggregations.ApproxDistinctAggregator.hash(1));
+        assertEquals(one, NumericAggregations.ApproxDistinctAggregator.hash(1.0));
+        assertEquals(NumericAggregations.ApproxDistinctAggregator.hash(List.of(1L, "a")),
+                NumericAggregations.ApproxDistinctAggregator.hash(List.of(1.0, "a")));
+        assertNotEquals(one, NumericAggregations.ApproxDistinctAggregator.hash(1.5));
+        assertNotEquals(one, NumericAggregations.ApproxDistinctAggregator.hash(true));
+        assertNotEquals(one, NumericAggregations.ApproxDistinctAggregator.hash(List.of(1L)));
+        // The same String.hashCode(), which a 32-bit hash couldn't tell apart
+        assertNotEquals(NumericAggregations.ApproxDistinctAggregator.hash("Aa"),
+                NumericAggregations.ApproxDistinctAggregator.hash("BB"));
+    }
+
+    @Test
+    void estimateManyDistinctValues() {
+        NumericAggregations.ApproxDistinctAggregator strings = new NumericAggregations().approxDistinct();
+        NumericAggregations.ApproxDistinctAggregator numbers = new NumericAggregations().approxDistinct();
+        for (long i = 0; i < 1_000_000; i++) {
+            strings.add("value" + i);
+            numbers.add(i);
+            numbers.add((double) i);
+        }
+        assertEquals(1_000_000, strings.result(), 1_000_000 * 0.03);
+        assertEquals(1_000_000, numbers.result(), 1_000_000 * 0.03);
+    }
+
+    @Test
+    void estimatePercentilesAcrossMergedStates() {
+        TDigest left = new TDigest();
+        TDigest right = new TDigest();
+        double[] values = new double[1000];
+        for (int chunk = 0; chunk < 100; chunk++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = chunk * values.length + i;
+            }
+            (chunk % 2 == 0 ? left : right).add(values, values.length);
+        }
+        left.merge(right);
+        assertEquals(0, left.quantile(0), 0);
+        assertEquals(50_000, left.quantile(0.5), 100_000 * 0.01);
+        assertEquals(99_000, left.quantile(0.99), 100_000 * 0.001);
+        assertEquals(99_999, left.quantile(1), 0);
+
+        NumericAggregations.ApproxPercentileAggregator aggregator = new NumericAggregations().approxPercentile();
+        assertNull(aggregator.result());
+        for (int i = 1; i <= 3; i++) {
+            aggregator.add(i, 0.5);
+        }
+        assertEquals(2.0, aggregator.result(), 0);
+    }
+}
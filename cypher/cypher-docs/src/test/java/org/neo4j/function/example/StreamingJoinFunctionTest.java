@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.function.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StreamingJoinFunctionTest {
+    private final StreamingJoinFunction function = new StreamingJoinFunction();
+
+    @Test
+    void joinLikeStringJoin() {
+        List<String> strings = Arrays.asList("a", "bb", null, "ccc");
+        assertEquals(String.join(";", strings), function.joinLimited(strings, ";", -1));
+        assertEquals("", function.joinLimited(List.of(), ",", -1));
+        assertNull(function.joinLimited(null, ",", -1));
+        assertNull(function.joinLimited(List.of("a"), null, -1));
+    }
+
+    @Test
+    void stopAtMaxLength() {
+        List<String> strings = List.of("abc", "def", "ghi");
+        assertEquals("abc,de", function.joinLimited(strings, ",", 6));
+        assertEquals("abc,", function.joinLimited(strings, ",", 4));
+        assertEquals("abc,def,ghi", function.joinLimited(strings, ",", 11));
+        assertEquals("abc,def,ghi", function.joinLimited(strings, ",", 100));
+        assertEquals("", function.joinLimited(strings, ",", 0));
+    }
+
+    @Test
+    void doNotCutSurrogatePairsInHalf() {
+        String pair = new String(Character.toChars(0x1F600));
+        assertEquals("a", function.joinLimited(List.of("a" + pair), ",", 2));
+    }
+}
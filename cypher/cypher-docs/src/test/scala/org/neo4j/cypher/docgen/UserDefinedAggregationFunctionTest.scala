@@ -29,7 +29,10 @@ class UserDefinedAggregationFunctionTest extends DocumentingTest {
 
   override def doc = new DocBuilder {
     doc("User-defined aggregation functions", "query-functions-user-defined-aggregation")
-    registerUserDefinedAggregationFunctions(classOf[org.neo4j.function.example.LongestString])
+    registerUserDefinedAggregationFunctions(
+      classOf[org.neo4j.function.example.LongestString],
+      classOf[org.neo4j.function.example.NumericAggregations]
+    )
 
     initQueries(
       """UNWIND ['John', 'Paul', 'George', 'Ringe'] AS beatle
@@ -50,6 +53,28 @@ class UserDefinedAggregationFunctionTest extends DocumentingTest {
         resultTable()
       }
     }
+
+    section("Aggregate numbers", "functions-call-user-defined-numeric-aggregation-functions") {
+      p("""Aggregation functions over large numbers of values can keep their state in primitive buffers.
+          |This calls the user-defined aggregation functions in `org.neo4j.function.example.NumericAggregations`.""".stripMargin)
+      query(
+        """UNWIND [1, 1.0, 2, 3, 4, 7, 8] AS number
+          |RETURN org.neo4j.function.example.longSum(toInteger(number)) AS sum,
+          |       org.neo4j.function.example.log2Histogram(toInteger(number)) AS histogram,
+          |       org.neo4j.function.example.approxDistinct(number) AS distinct,
+          |       org.neo4j.function.example.approxPercentile(number, 0.5) AS median""".stripMargin,
+        ResultAssertions((r) => {
+          assert(r.toList === List(Map(
+            "sum" -> 26L,
+            "histogram" -> List(0L, 2L, 2L, 2L, 1L),
+            "distinct" -> 6L,
+            "median" -> 3.0
+          )))
+        })
+      ) {
+        resultTable()
+      }
+    }
   }.build()
 
 }
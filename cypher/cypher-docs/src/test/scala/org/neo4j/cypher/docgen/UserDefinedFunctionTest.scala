@@ -30,7 +30,10 @@ class UserDefinedFunctionTest extends DocumentingTest {
   override def doc = new DocBuilder {
     doc("User-defined scalar functions", "query-functions-udf")
 
-    registerUserDefinedFunctions(classOf[org.neo4j.function.example.JoinFunction])
+    registerUserDefinedFunctions(
+      classOf[org.neo4j.function.example.JoinFunction],
+      classOf[org.neo4j.function.example.StreamingJoinFunction]
+    )
 
     initQueries(
       """UNWIND ["John", "Paul", "George", "Ringo"] as name CREATE (:Member {name: name})"""
@@ -55,6 +58,21 @@ class UserDefinedFunctionTest extends DocumentingTest {
       }
     }
 
+    section("Call a user-defined function with default arguments") {
+      p("This calls the user-defined function `org.neo4j.function.example.joinLimited()`, with and without its optional maximum length.")
+
+      query(
+        """MATCH (n:Member)
+          |RETURN org.neo4j.function.example.joinLimited(collect(n.name)) AS members,
+          |       org.neo4j.function.example.joinLimited(collect(n.name), ',', 9) AS firstMembers""".stripMargin,
+        ResultAssertions((r) =>
+          assert(r.toList === List(Map("members" -> "John,Paul,George,Ringo", "firstMembers" -> "John,Paul")))
+        )
+      ) {
+        resultTable()
+      }
+    }
+
     p(
       """
         |For developing and deploying user-defined functions in Neo4j, see <<java-reference#extending-neo4j-functions, Extending Neo4j -> User-defined functions>>."""
@@ -0,0 +1,110 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * Builds the result stream of a procedure that returns a large number of rows.
+ * <p>
+ * Rows are produced a batch at a time into primitive buffers, and copied one at a time into a single
+ * record object that is handed out for every row. Cypher pulls rows from a procedure's stream as it
+ * needs them, so at most one batch of rows is computed ahead of what has been pulled. It reads the
+ * fields of a record before pulling the next one, so reusing the record is safe. Between batches the
+ * transaction is checked for termination, so a cancelled or timed out query stops the procedure
+ * promptly, as long as the producer doesn't spend long filling a single batch.
+ * <p>
+ * Because the record is reused, the stream must not be collected, or otherwise consumed in a way that
+ * holds on to more than one record at a time, outside of Cypher.
+ *
+ * @param <B> the type of the batch buffer.
+ * @param <R> the type of the output record.
+ */
+public final class BatchedResultStream<B,R> extends Spliterators.AbstractSpliterator<R> {
+    /**
+     * Fills a batch with the next rows.
+     */
+    public interface BatchProducer<B> {
+        /**
+         * @return the number of rows put in {@code batch}, zero when there are no more rows.
+         */
+        int fill(B batch);
+    }
+
+    /**
+     * Copies one row of a batch to the output record.
+     */
+    public interface RowWriter<B,R> {
+        void write(B batch, int row, R record);
+    }
+
+    private final B batch;
+    private final R record;
+    private final BatchProducer<B> producer;
+    private final RowWriter<B,R> writer;
+    private final TerminationGuard guard;
+    private int size;
+    private int row;
+    private boolean exhausted;
+
+    private BatchedResultStream(B batch, R record, BatchProducer<B> producer, RowWriter<B,R> writer,
+            TerminationGuard guard) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.batch = batch;
+        this.record = record;
+        this.producer = producer;
+        this.writer = writer;
+        this.guard = guard;
+    }
+
+    /**
+     * @param batch the buffer that every batch is produced into.
+     * @param record the record that every row is written to.
+     * @param onClose called when the stream is closed, to release what the producer reads from.
+     */
+    public static <B,R> Stream<R> stream(B batch, R record, BatchProducer<B> producer, RowWriter<B,R> writer,
+            TerminationGuard guard, Runnable onClose) {
+        return StreamSupport.stream(new BatchedResultStream<>(batch, record, producer, writer, guard), false)
+                .onClose(onClose);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+        if (row == size) {
+            if (exhausted) {
+                return false;
+            }
+            guard.check();
+            size = producer.fill(batch);
+            row = 0;
+            if (size == 0) {
+                exhausted = true;
+                return false;
+            }
+        }
+        writer.write(batch, row++, record);
+        action.accept(record);
+        return true;
+    }
+}
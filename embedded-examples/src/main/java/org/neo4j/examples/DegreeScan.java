@@ -0,0 +1,226 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.TerminationGuard;
+
+/**
+ * Computes the degree of every node in the database using several threads.
+ * <p>
+ * The calling thread scans the nodes in its own transaction and hands out batches of node ids to workers, which
+ * look them up in transactions of their own to compute the degrees. The workers of every scan run on one shared pool
+ * of daemon threads, at most {@code concurrency} of them per scan. Batches are only handed out as the
+ * computed ones are consumed, at most two per worker at a time, so memory use doesn't grow with the size of the
+ * store. Workers check the termination guard of the calling transaction as they go, and the first failure of any
+ * worker stops all of them.
+ * <p>
+ * The worker transactions are started through the {@link GraphDatabaseService} given to a procedure, so they don't
+ * run in the security context of whoever called it. Degrees are computed for every node, including the ones the
+ * caller isn't allowed to see. Procedures built on this scan should only be installed where everyone who can call
+ * them may read the whole graph.
+ */
+class DegreeScan implements AutoCloseable {
+    static final int BATCH_SIZE = 10_000;
+    private static final Degrees END = new Degrees();
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "degree-scan-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Receives the degree of every node, on the thread that runs the scan.
+     */
+    interface DegreeVisitor {
+        void visit(long nodeId, long degree);
+    }
+
+    /**
+     * The degrees of a batch of up to {@link #BATCH_SIZE} nodes, computed by one worker.
+     */
+    static class Degrees {
+        final long[] nodeIds = new long[BATCH_SIZE];
+        final long[] degrees = new long[BATCH_SIZE];
+        int size;
+        private Throwable failure;
+    }
+
+    private final GraphDatabaseService db;
+    private final TerminationGuard guard;
+    private final ResourceIterator<Node> nodes;
+    private final BlockingQueue<Degrees> submitted = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Degrees> completed = new LinkedBlockingQueue<>();
+    private final int concurrency;
+    private final int maxPending;
+    private int pending;
+    private int workers;
+    private volatile boolean cancelled;
+
+    DegreeScan(GraphDatabaseService db, Transaction transaction, TerminationGuard guard, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive, was " + concurrency);
+        }
+        this.db = db;
+        this.guard = guard;
+        this.concurrency = concurrency;
+        this.maxPending = concurrency * 2;
+        this.nodes = transaction.getAllNodes().iterator();
+    }
+
+    static void scan(GraphDatabaseService db, Transaction transaction, TerminationGuard guard, int concurrency,
+            DegreeVisitor visitor) {
+        try (DegreeScan scan = new DegreeScan(db, transaction, guard, concurrency)) {
+            for (Degrees batch = scan.next(); batch != null; batch = scan.next()) {
+                for (int i = 0; i < batch.size; i++) {
+                    visitor.visit(batch.nodeIds[i], batch.degrees[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands out more batches if there is room for them, and waits for the next one a worker completes.
+     *
+     * @return the next completed batch, or {@code null} once every node has been visited.
+     */
+    Degrees next() {
+        while (pending < maxPending && nodes.hasNext()) {
+            submit();
+        }
+        if (pending == 0) {
+            // Let the workers go back to the pool, even if the caller never closes this scan
+            close();
+            return null;
+        }
+        Degrees batch;
+        try {
+            batch = completed.take();
+        }
+        catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while computing degrees", e);
+        }
+        pending--;
+        if (batch.failure != null) {
+            close();
+            // A terminated transaction fails the same way as when computing degrees on this thread
+            guard.check();
+            throw new RuntimeException("Failed to compute degrees", batch.failure);
+        }
+        return batch;
+    }
+
+    /**
+     * @return the completed batches, closing this scan when the stream is closed.
+     */
+    Stream<Degrees> batches() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Degrees>(Long.MAX_VALUE, Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Degrees> action) {
+                Degrees batch = next();
+                if (batch == null) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        }, false).onClose(this::close);
+    }
+
+    /**
+     * Stops the workers, whether or not every node has been visited.
+     */
+    @Override
+    public void close() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (int i = 0; i < workers; i++) {
+            submitted.add(END);
+        }
+        nodes.close();
+    }
+
+    private void submit() {
+        guard.check();
+        Degrees batch = new Degrees();
+        while (batch.size < BATCH_SIZE && nodes.hasNext()) {
+            batch.nodeIds[batch.size++] = nodes.next().getId();
+        }
+        pending++;
+        submitted.add(batch);
+        if (workers < concurrency && workers < pending) {
+            workers++;
+            WORKERS.execute(this::work);
+        }
+    }
+
+    private void work() {
+        try {
+            for (Degrees batch = submitted.take(); batch != END; batch = submitted.take()) {
+                compute(batch);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compute(Degrees batch) {
+        int computed = 0;
+        try (Transaction tx = db.beginTx()) {
+            for (int i = 0; i < batch.size && !cancelled; i++) {
+                guard.check();
+                try {
+                    batch.degrees[computed] = tx.getNodeById(batch.nodeIds[i]).getDegree();
+                }
+                catch (NotFoundException e) {
+                    // Deleted since it was scanned
+                    continue;
+                }
+                batch.nodeIds[computed++] = batch.nodeIds[i];
+            }
+        }
+        catch (Throwable e) {
+            batch.failure = e;
+        }
+        finally {
+            batch.size = computed;
+            completed.add(batch);
+        }
+    }
+}
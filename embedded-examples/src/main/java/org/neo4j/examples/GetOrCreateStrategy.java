@@ -0,0 +1,206 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.neo4j.examples.Schemas.createIndex;
+import static org.neo4j.examples.Schemas.createUniqueConstraint;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.neo4j.graphdb.ConstraintViolationException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.internal.helpers.collection.Iterators;
+
+/**
+ * Gets the node with a given label and property value, or creates it if there is none, in a way that is safe when
+ * many threads do it for the same value at the same time.
+ * <p>
+ * There are three strategies to choose from:
+ * <ul>
+ * <li>{@link #merge} uses Cypher {@code MERGE} backed by a uniqueness constraint.</li>
+ * <li>{@link #optimistic} looks the node up and creates it if it is missing, relying on the uniqueness constraint
+ * to fail the transaction that loses a race, and then looks again.</li>
+ * <li>{@link #lockStriped} needs no constraint on the label. Creation takes a write lock on one of a fixed number
+ * of lock nodes, picked by the hash of the value, and checks again while holding it. Threads only wait on each other
+ * when their values hash to the same stripe. The lock nodes themselves are got or created under a uniqueness
+ * constraint, so every strategy for the same label and key shares them.</li>
+ * </ul>
+ * Every strategy counts its attempts and aborts, that is transactions that had to be retried because of a race, and
+ * gives up after {@value #MAX_ATTEMPTS} attempts by rethrowing the last failure.
+ */
+public abstract class GetOrCreateStrategy {
+    public static final int MAX_ATTEMPTS = 10;
+
+    final GraphDatabaseService db;
+    final Label label;
+    final String key;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder aborts = new LongAdder();
+
+    GetOrCreateStrategy(GraphDatabaseService db, Label label, String key) {
+        this.db = db;
+        this.label = label;
+        this.key = key;
+    }
+
+    public static GetOrCreateStrategy merge(GraphDatabaseService db, Label label, String key) {
+        createUniqueConstraint(db, label, key);
+        return new Merge(db, label, key);
+    }
+
+    public static GetOrCreateStrategy optimistic(GraphDatabaseService db, Label label, String key) {
+        createUniqueConstraint(db, label, key);
+        return new Optimistic(db, label, key);
+    }
+
+    public static GetOrCreateStrategy lockStriped(GraphDatabaseService db, Label label, String key, int stripes) {
+        createIndex(db, label, key);
+        return new LockStriped(db, label, key, stripes);
+    }
+
+    public Node getOrCreate(Object value) {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return attempt(value);
+            }
+            catch (ConstraintViolationException | TransientFailureException e) {
+                // Another transaction created the same node first, or we deadlocked with it, try again
+                abort(attempt, e);
+            }
+            catch (TransactionFailureException e) {
+                if (!(e.getCause() instanceof ConstraintViolationException)) {
+                    throw e;
+                }
+                abort(attempt, e);
+            }
+        }
+    }
+
+    private void abort(int attempt, RuntimeException failure) {
+        aborts.increment();
+        if (attempt >= MAX_ATTEMPTS) {
+            throw failure;
+        }
+    }
+
+    public long attempts() {
+        return attempts.sum();
+    }
+
+    public long aborts() {
+        return aborts.sum();
+    }
+
+    abstract Node attempt(Object value);
+
+    private static class Merge extends GetOrCreateStrategy {
+        private final String query;
+
+        Merge(GraphDatabaseService db, Label label, String key) {
+            super(db, label, key);
+            this.query = "MERGE (n:`" + label.name() + "` {`" + key + "`: $value}) RETURN n";
+        }
+
+        @Override
+        Node attempt(Object value) {
+            Map<String,Object> parameters = new HashMap<>();
+            parameters.put("value", value);
+            try (Transaction tx = db.beginTx();
+                 ResourceIterator<Node> nodes = tx.execute(query, parameters).columnAs("n")) {
+                Node node = nodes.next();
+                tx.commit();
+                return node;
+            }
+        }
+    }
+
+    private static class Optimistic extends GetOrCreateStrategy {
+        Optimistic(GraphDatabaseService db, Label label, String key) {
+            super(db, label, key);
+        }
+
+        @Override
+        Node attempt(Object value) {
+            try (Transaction tx = db.beginTx()) {
+                Node node = tx.findNode(label, key, value);
+                if (node == null) {
+                    node = tx.createNode(label);
+                    node.setProperty(key, value);
+                }
+                tx.commit();
+                return node;
+            }
+        }
+    }
+
+    private static class LockStriped extends GetOrCreateStrategy {
+        private static final Label STRIPE = Label.label("LockStripe");
+        private static final String STRIPE_ID = "id";
+        private static final String GET_OR_CREATE_STRIPES = "UNWIND range(0, $stripes - 1) AS stripe "
+                + "MERGE (s:LockStripe {id: $label + ':' + $key + ':' + stripe}) "
+                + "ON CREATE SET s.label = $label, s.key = $key, s.stripe = stripe "
+                + "RETURN elementId(s) AS id ORDER BY s.stripe";
+
+        private final String[] stripes;
+
+        LockStriped(GraphDatabaseService db, Label label, String key, int stripes) {
+            super(db, label, key);
+            if (stripes <= 0) {
+                throw new IllegalArgumentException("Need at least one stripe, was " + stripes);
+            }
+            // Strategies for the same label and key lock the same stripes, however many of them there are
+            createUniqueConstraint(db, STRIPE, STRIPE_ID);
+            Map<String,Object> parameters = new HashMap<>();
+            parameters.put("stripes", stripes);
+            parameters.put("label", label.name());
+            parameters.put("key", key);
+            try (Transaction tx = db.beginTx();
+                 ResourceIterator<String> ids = tx.execute(GET_OR_CREATE_STRIPES, parameters).columnAs("id")) {
+                this.stripes = Iterators.asList(ids).toArray(new String[0]);
+                tx.commit();
+            }
+        }
+
+        @Override
+        Node attempt(Object value) {
+            try (Transaction tx = db.beginTx()) {
+                Node node = tx.findNode(label, key, value);
+                if (node == null) {
+                    tx.acquireWriteLock(tx.getNodeByElementId(stripes[Math.floorMod(value.hashCode(), stripes.length)]));
+                    // Someone holding the lock before us may have created it
+                    node = tx.findNode(label, key, value);
+                    if (node == null) {
+                        node = tx.createNode(label);
+                        node.setProperty(key, value);
+                    }
+                }
+                tx.commit();
+                return node;
+            }
+        }
+    }
+}
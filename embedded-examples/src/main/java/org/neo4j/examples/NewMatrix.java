@@ -21,6 +21,8 @@ package org.neo4j.examples;
 import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 
 import java.io.IOException;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.graphdb.Direction;
@@ -147,6 +149,14 @@ public class NewMatrix {
         }
     }
 
+    /**
+     * Streams the paths to Neo's friends, see {@link #printNeoFriends()}. The stream holds a transaction
+     * open until it is closed.
+     */
+    public Stream<Path> neoFriends() {
+        return streamInTransaction(tx -> getFriends(tx, getNeoNode(tx)));
+    }
+
     // tag::get-friends[]
     private Traverser getFriends(Transaction transaction, final Node person) {
         TraversalDescription td = transaction.traversalDescription()
@@ -175,6 +185,14 @@ public class NewMatrix {
         }
     }
 
+    /**
+     * Streams the paths to the hackers of the Matrix, see {@link #printMatrixHackers()}. The stream holds
+     * a transaction open until it is closed.
+     */
+    public Stream<Path> matrixHackers() {
+        return streamInTransaction(tx -> findHackers(tx, getNeoNode(tx)));
+    }
+
     // tag::find-hackers[]
     private Traverser findHackers(Transaction transaction, final Node startNode) {
         TraversalDescription td = transaction.traversalDescription()
@@ -187,6 +205,17 @@ public class NewMatrix {
     }
     // end::find-hackers[]
 
+    private Stream<Path> streamInTransaction(Function<Transaction,Traverser> traversal) {
+        Transaction tx = graphDb.beginTx();
+        try {
+            return traversal.apply(tx).iterator().stream().onClose(tx::close);
+        }
+        catch (RuntimeException e) {
+            tx.close();
+            throw e;
+        }
+    }
+
     private void registerShutdownHook() {
         // Registers a shutdown hook for the Neo4j instance so that it
         // shuts down nicely when the VM exits (even if you "Ctrl-C" the
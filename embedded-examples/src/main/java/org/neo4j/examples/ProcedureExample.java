@@ -18,12 +18,19 @@
  */
 package org.neo4j.examples;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
 
 public class ProcedureExample {
     // tag::procedureExample[]
@@ -42,6 +49,79 @@ public class ProcedureExample {
     }
     // end::procedureExample[]
 
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public TerminationGuard guard;
+
+    /**
+     * Finds the same nodes as {@link #findDenseNodes(long)}, producing rows in batches and reusing a single
+     * output record for all of them, see {@link BatchedResultStream}.
+     *
+     * @param threshold only include nodes with at least this many relationships
+     * @param batchSize the number of rows to produce between checks for termination
+     * @return a stream of records describing dense nodes in this database
+     */
+    @Procedure
+    public Stream<NodeDegree> findDenseNodesBatched(@Name("threshold") long threshold,
+            @Name(value = "batchSize", defaultValue = "1024") long batchSize) {
+        ResourceIterator<Node> nodes = transaction.getAllNodes().iterator();
+        return BatchedResultStream.stream(new DegreeBatch(Math.toIntExact(batchSize)), new NodeDegree(-1, 0),
+                batch -> batch.fill(nodes, threshold, guard),
+                (batch, row, record) -> {
+                    record.nodeId = batch.nodeIds[row];
+                    record.degree = batch.degrees[row];
+                },
+                guard, nodes::close);
+    }
+
+    /**
+     * Finds the same nodes as {@link #findDenseNodes(long)}, computing degrees on several threads. The degree
+     * computations bypass the security context of the caller, see {@link DegreeScan}.
+     *
+     * @param threshold only include nodes with at least this many relationships
+     * @param concurrency the number of threads to compute degrees on
+     * @param limit if not negative, only return this many of the densest nodes, densest first
+     * @return a stream of records describing dense nodes in this database
+     */
+    @Procedure
+    public Stream<NodeDegree> findDenseNodesInParallel(@Name("threshold") long threshold,
+            @Name(value = "concurrency", defaultValue = "4") long concurrency,
+            @Name(value = "limit", defaultValue = "-1") long limit) {
+        if (limit >= 0) {
+            TopDegrees top = new TopDegrees(Math.toIntExact(limit));
+            DegreeScan.scan(db, transaction, guard, Math.toIntExact(concurrency), (nodeId, degree) -> {
+                if (degree > threshold) {
+                    top.offer(nodeId, degree);
+                }
+            });
+            return top.densestFirst().stream();
+        }
+
+        return new DegreeScan(db, transaction, guard, Math.toIntExact(concurrency)).batches()
+                .flatMap(batch -> IntStream.range(0, batch.size)
+                        .filter(i -> batch.degrees[i] > threshold)
+                        .mapToObj(i -> new NodeDegree(batch.nodeIds[i], batch.degrees[i])));
+    }
+
+    /**
+     * Counts the nodes in the database by degree, in buckets that double in size: degree 0, 1, 2-3, 4-7 and so on.
+     * The degree computations bypass the security context of the caller, see {@link DegreeScan}.
+     *
+     * @param concurrency the number of threads to compute degrees on
+     * @return a stream of records, one for each bucket that has any nodes, lowest degrees first
+     */
+    @Procedure
+    public Stream<DegreeBucket> degreeHistogram(@Name(value = "concurrency", defaultValue = "4") long concurrency) {
+        long[] counts = new long[Long.SIZE + 1];
+        DegreeScan.scan(db, transaction, guard, Math.toIntExact(concurrency),
+                (nodeId, degree) -> counts[Long.SIZE - Long.numberOfLeadingZeros(degree)]++);
+        return IntStream.range(0, counts.length)
+                .filter(bucket -> counts[bucket] > 0)
+                .mapToObj(bucket -> new DegreeBucket(bucket, counts[bucket]));
+    }
+
     // tag::outputRecordExample[]
 
     /**
@@ -57,4 +137,145 @@ public class ProcedureExample {
         }
     }
     // end::outputRecordExample[]
+
+    /**
+     * Output record for {@link #findDenseNodesInParallel(long, long, long)}.
+     */
+    public static class NodeDegree {
+        public long nodeId;
+        public long degree;
+
+        public NodeDegree(long nodeId, long degree) {
+            this.nodeId = nodeId;
+            this.degree = degree;
+        }
+    }
+
+    /**
+     * Output record for {@link #degreeHistogram(long)}.
+     */
+    public static class DegreeBucket {
+        public long minDegree;
+        public long maxDegree;
+        public long count;
+
+        DegreeBucket(int bucket, long count) {
+            this.minDegree = bucket == 0 ? 0 : 1L << (bucket - 1);
+            this.maxDegree = bucket == 0 ? 0 : bucket == Long.SIZE ? Long.MAX_VALUE : (1L << bucket) - 1;
+            this.count = count;
+        }
+    }
+
+    private static class DegreeBatch {
+        private final long[] nodeIds;
+        private final long[] degrees;
+
+        DegreeBatch(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive, was " + size);
+            }
+            this.nodeIds = new long[size];
+            this.degrees = new long[size];
+        }
+
+        /**
+         * Scans nodes until the batch is full of dense ones. Few nodes may be dense, so the guard is also
+         * checked every batch size of nodes scanned, not only between batches.
+         */
+        int fill(ResourceIterator<Node> nodes, long threshold, TerminationGuard guard) {
+            int size = 0;
+            int scanned = 0;
+            while (size < nodeIds.length && nodes.hasNext()) {
+                if (++scanned % nodeIds.length == 0) {
+                    guard.check();
+                }
+                Node node = nodes.next();
+                long degree = node.getDegree();
+                if (degree > threshold) {
+                    nodeIds[size] = node.getId();
+                    degrees[size] = degree;
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * The densest nodes seen so far, kept in a min-heap on degree over primitive arrays.
+     */
+    private static class TopDegrees {
+        private final long[] nodeIds;
+        private final long[] degrees;
+        private int size;
+
+        TopDegrees(int limit) {
+            this.nodeIds = new long[limit];
+            this.degrees = new long[limit];
+        }
+
+        void offer(long nodeId, long degree) {
+            if (size < degrees.length) {
+                nodeIds[size] = nodeId;
+                degrees[size] = degree;
+                siftUp(size++);
+            }
+            else if (size > 0 && degree > degrees[0]) {
+                nodeIds[0] = nodeId;
+                degrees[0] = degree;
+                siftDown(0);
+            }
+        }
+
+        List<NodeDegree> densestFirst() {
+            List<NodeDegree> densest = new ArrayList<>(size);
+            while (size > 0) {
+                densest.add(new NodeDegree(nodeIds[0], degrees[0]));
+                size--;
+                swap(0, size);
+                siftDown(0);
+            }
+            Collections.reverse(densest);
+            return densest;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (degrees[parent] <= degrees[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && degrees[left] < degrees[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && degrees[right] < degrees[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long nodeId = nodeIds[a];
+            nodeIds[a] = nodeIds[b];
+            nodeIds[b] = nodeId;
+            long degree = degrees[a];
+            degrees[a] = degrees[b];
+            degrees[b] = degree;
+        }
+    }
 }
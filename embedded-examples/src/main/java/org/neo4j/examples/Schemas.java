@@ -0,0 +1,66 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.util.concurrent.TimeUnit;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.IndexDefinition;
+
+/**
+ * Creates the schema the examples rely on, unless it already exists, and waits for it to come online.
+ */
+public final class Schemas {
+    private Schemas() {
+    }
+
+    public static void createUniqueConstraint(GraphDatabaseService db, Label label, String key) {
+        try (Transaction tx = db.beginTx()) {
+            for (ConstraintDefinition constraint : tx.schema().getConstraints(label)) {
+                if (constraint.getPropertyKeys().iterator().next().equals(key)) {
+                    return;
+                }
+            }
+            tx.schema().constraintFor(label).assertPropertyIsUnique(key).create();
+            tx.commit();
+        }
+        awaitIndexes(db);
+    }
+
+    public static void createIndex(GraphDatabaseService db, Label label, String key) {
+        try (Transaction tx = db.beginTx()) {
+            for (IndexDefinition index : tx.schema().getIndexes(label)) {
+                if (index.getPropertyKeys().iterator().next().equals(key)) {
+                    return;
+                }
+            }
+            tx.schema().indexFor(label).on(key).create();
+            tx.commit();
+        }
+        awaitIndexes(db);
+    }
+
+    private static void awaitIndexes(GraphDatabaseService db) {
+        try (Transaction tx = db.beginTx()) {
+            tx.schema().awaitIndexesOnline(1, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+
+/**
+ * Answers many shortest path queries, such as degrees of separation, concurrently.
+ * <p>
+ * Every query is a bidirectional breadth first search that expands the smaller of the two
+ * frontiers one level at a time, keeping the visited nodes of each side in a primitive map
+ * from node id to the id of the node it was reached from. Queries run on a bounded pool of
+ * threads, each in its own transaction.
+ * <p>
+ * Results are kept in a small LRU cache keyed by the pair of nodes. A transaction event
+ * listener bumps a version after every commit, each cached result remembers the version it
+ * was computed at and is not used once anything else has been committed. Call
+ * {@link #close()} to stop listening for commits.
+ */
+public class ShortestPathService implements AutoCloseable {
+    private static final long[] NO_PATH = new long[0];
+    private static final long NONE = -1;
+
+    private final DatabaseManagementService managementService;
+    private final String databaseName;
+    private final GraphDatabaseService db;
+    private final CommitCounter commits = new CommitCounter();
+    private final RelationshipType[] types;
+    private final Direction direction;
+    private final int maxDepth;
+    private final ExecutorService executor;
+    private final Map<PathKey,CachedPath> cache;
+
+    private ShortestPathService(Builder builder) {
+        this.managementService = builder.managementService;
+        this.databaseName = builder.databaseName;
+        this.db = managementService.database(databaseName);
+        this.types = builder.types;
+        this.direction = builder.direction;
+        this.maxDepth = builder.maxDepth;
+        this.executor = Executors.newFixedThreadPool(builder.threads);
+        int cacheSize = builder.cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PathKey,CachedPath> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static Builder builder(DatabaseManagementService managementService, String databaseName) {
+        return new Builder(managementService, databaseName);
+    }
+
+    /**
+     * Finds a shortest path between two nodes.
+     *
+     * @return the ids of the nodes along the path, starting with {@code source} and ending with
+     * {@code target}, or an empty array if there is no path within the max depth.
+     */
+    public long[] findPath(long source, long target) {
+        PathKey key = new PathKey(source, target);
+        long version = commits.version.get();
+        synchronized (cache) {
+            CachedPath cached = cache.get(key);
+            if (cached != null && cached.version == version) {
+                return cached.path.clone();
+            }
+        }
+
+        long[] path;
+        try (Transaction tx = db.beginTx()) {
+            path = search(tx, source, target);
+        }
+        synchronized (cache) {
+            cache.put(key, new CachedPath(version, path));
+        }
+        return path.clone();
+    }
+
+    public CompletableFuture<long[]> findPathAsync(long source, long target) {
+        return CompletableFuture.supplyAsync(() -> findPath(source, target), executor);
+    }
+
+    /**
+     * Finds shortest paths between {@code sources[i]} and {@code targets[i]} for every i, concurrently.
+     *
+     * @return the paths, in the same order as the given pairs, see {@link #findPath(long, long)}.
+     */
+    public List<long[]> findPaths(long[] sources, long[] targets) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException(
+                    "Got " + sources.length + " sources but " + targets.length + " targets");
+        }
+        List<CompletableFuture<long[]>> futures = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            futures.add(findPathAsync(sources[i], targets[i]));
+        }
+        List<long[]> paths = new ArrayList<>(futures.size());
+        for (CompletableFuture<long[]> future : futures) {
+            paths.add(future.join());
+        }
+        return paths;
+    }
+
+    @Override
+    public void close() {
+        managementService.unregisterTransactionEventListener(databaseName, commits);
+        executor.shutdown();
+    }
+
+    private long[] search(Transaction tx, long source, long target) {
+        if (source == target) {
+            tx.getNodeById(source);
+            return new long[] {source};
+        }
+        LongLongHashMap forwardParents = new LongLongHashMap();
+        LongLongHashMap backwardParents = new LongLongHashMap();
+        forwardParents.put(source, NONE);
+        backwardParents.put(target, NONE);
+        LongArrayList forwardFrontier = LongArrayList.newListWith(source);
+        LongArrayList backwardFrontier = LongArrayList.newListWith(target);
+
+        for (int depth = 0; depth < maxDepth; depth++) {
+            if (forwardFrontier.isEmpty() || backwardFrontier.isEmpty()) {
+                break;
+            }
+            boolean forward = forwardFrontier.size() <= backwardFrontier.size();
+            LongLongHashMap parents = forward ? forwardParents : backwardParents;
+            LongLongHashMap otherParents = forward ? backwardParents : forwardParents;
+            LongArrayList frontier = forward ? forwardFrontier : backwardFrontier;
+            Direction expandDirection = forward ? direction : direction.reverse();
+
+            LongArrayList next = new LongArrayList();
+            long meeting = NONE;
+            int shortestOtherDepth = Integer.MAX_VALUE;
+            for (int i = 0; i < frontier.size(); i++) {
+                long nodeId = frontier.get(i);
+                Node node = tx.getNodeById(nodeId);
+                try (ResourceIterable<Relationship> relationships = node.getRelationships(expandDirection, types)) {
+                    for (Relationship rel : relationships) {
+                        long otherId = rel.getOtherNode(node).getId();
+                        if (parents.containsKey(otherId)) {
+                            continue;
+                        }
+                        parents.put(otherId, nodeId);
+                        next.add(otherId);
+                        if (otherParents.containsKey(otherId)) {
+                            // Nodes reached on the other side may be at different depths, keep the closest
+                            int otherDepth = depthOf(otherParents, otherId);
+                            if (otherDepth < shortestOtherDepth) {
+                                shortestOtherDepth = otherDepth;
+                                meeting = otherId;
+                            }
+                        }
+                    }
+                }
+            }
+            if (meeting != NONE) {
+                return join(forwardParents, backwardParents, meeting);
+            }
+            if (forward) {
+                forwardFrontier = next;
+            }
+            else {
+                backwardFrontier = next;
+            }
+        }
+        return NO_PATH;
+    }
+
+    private static int depthOf(LongLongHashMap parents, long nodeId) {
+        int depth = 0;
+        for (long parent = parents.get(nodeId); parent != NONE; parent = parents.get(parent)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static long[] join(LongLongHashMap forwardParents, LongLongHashMap backwardParents, long meeting) {
+        LongArrayList path = new LongArrayList();
+        for (long node = meeting; node != NONE; node = forwardParents.get(node)) {
+            path.add(node);
+        }
+        path.reverseThis();
+        for (long node = backwardParents.get(meeting); node != NONE; node = backwardParents.get(node)) {
+            path.add(node);
+        }
+        return path.toArray();
+    }
+
+    private static final class PathKey {
+        private final long source;
+        private final long target;
+
+        PathKey(long source, long target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PathKey)) {
+                return false;
+            }
+            PathKey other = (PathKey) o;
+            return source == other.source && target == other.target;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(source) * 31 + Long.hashCode(target);
+        }
+    }
+
+    private static final class CommitCounter implements TransactionEventListener<Object> {
+        private final AtomicLong version = new AtomicLong();
+
+        @Override
+        public Object beforeCommit(TransactionData data, Transaction transaction,
+                GraphDatabaseService databaseService) {
+            return null;
+        }
+
+        @Override
+        public void afterCommit(TransactionData data, Object state, GraphDatabaseService databaseService) {
+            version.incrementAndGet();
+        }
+
+        @Override
+        public void afterRollback(TransactionData data, Object state, GraphDatabaseService databaseService) {
+        }
+    }
+
+    private static final class CachedPath {
+        private final long version;
+        private final long[] path;
+
+        CachedPath(long version, long[] path) {
+            this.version = version;
+            this.path = path;
+        }
+    }
+
+    public static class Builder {
+        private final DatabaseManagementService managementService;
+        private final String databaseName;
+        private RelationshipType[] types = new RelationshipType[0];
+        private Direction direction = Direction.BOTH;
+        private int maxDepth = 6;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int cacheSize = 1024;
+
+        private Builder(DatabaseManagementService managementService, String databaseName) {
+            this.managementService = managementService;
+            this.databaseName = databaseName;
+        }
+
+        /**
+         * Only follow relationships of these types, all types are followed by default.
+         */
+        public Builder relationshipTypes(RelationshipType... types) {
+            this.types = types;
+            return this;
+        }
+
+        /**
+         * The direction to follow relationships in from the source, {@link Direction#BOTH} by default.
+         */
+        public Builder direction(Direction direction) {
+            this.direction = direction;
+            return this;
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        public ShortestPathService build() {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("Max depth must not be negative, was " + maxDepth);
+            }
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Must use at least one thread, was " + threads);
+            }
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative, was " + cacheSize);
+            }
+            ShortestPathService service = new ShortestPathService(this);
+            managementService.registerTransactionEventListener(databaseName, service.commits);
+            return service;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.TransientFailureException;
+
+/**
+ * Runs units of work in transactions, retrying them when they fail for reasons that may go away on their own, such as
+ * deadlocks.
+ * <p>
+ * Between attempts it backs off exponentially with full jitter: the n:th retry waits a random time between zero and
+ * {@code min(maxBackoff, initialBackoff * 2^(n - 1))}, so that transactions that deadlocked with each other don't
+ * retry in lock step. It gives up when the maximum number of attempts is reached, or when the next wait would
+ * exceed the time budget, and then rethrows the last failure.
+ */
+public class TransactionRetryExecutor {
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long timeBudgetNanos;
+    private final Predicate<Throwable> retryable;
+    private final AttemptListener listener;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder backoffNanos = new LongAdder();
+
+    private TransactionRetryExecutor(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.timeBudgetNanos = builder.timeBudget.toNanos();
+        this.retryable = builder.retryable;
+        this.listener = builder.listener;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Deadlocks and other transient failures, whether thrown by the core API or reported by Cypher.
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientFailureException) {
+                return true;
+            }
+            if (cause instanceof QueryExecutionException
+                    && ((QueryExecutionException) cause).getStatusCode().startsWith("Neo.TransientError.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public <T> T execute(GraphDatabaseService db, Function<Transaction,T> work) {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            long attemptStart = System.nanoTime();
+            T result = null;
+            RuntimeException failure = null;
+            try (Transaction tx = db.beginTx()) {
+                result = work.apply(tx);
+                tx.commit();
+            }
+            catch (RuntimeException e) {
+                failure = e;
+            }
+            // Outside the try, so that a failing listener can't make committed work look failed and get it retried
+            listener.attempt(attempt, System.nanoTime() - attemptStart, failure);
+            if (failure == null) {
+                return result;
+            }
+
+            long backoff = backoff(attempt);
+            if (attempt >= maxAttempts || !retryable.test(failure)
+                    || System.nanoTime() - start + backoff > timeBudgetNanos) {
+                failures.increment();
+                throw failure;
+            }
+            retries.increment();
+            backoffNanos.add(backoff);
+            try {
+                Thread.sleep(backoff / 1_000_000, (int) (backoff % 1_000_000));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransactionFailureException("Interrupted", e);
+            }
+        }
+    }
+
+    public <T> T executeCypher(GraphDatabaseService db, String query, Map<String,Object> parameters,
+            Function<Result,T> consumer) {
+        return execute(db, tx -> {
+            try (Result result = tx.execute(query, parameters)) {
+                return consumer.apply(result);
+            }
+        });
+    }
+
+    public long attempts() {
+        return attempts.sum();
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the number of units of work that failed even after retrying.
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    public Duration timeBackingOff() {
+        return Duration.ofNanos(backoffNanos.sum());
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = initialBackoffNanos << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxBackoffNanos) {
+            ceiling = maxBackoffNanos;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Told about every attempt, how long it took, and the failure if it failed.
+     */
+    public interface AttemptListener {
+        AttemptListener NONE = (attempt, durationNanos, failure) -> {};
+
+        void attempt(int attempt, long durationNanos, Throwable failure);
+    }
+
+    public static class Builder {
+        private int maxAttempts = 10;
+        private Duration initialBackoff = Duration.ofMillis(10);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private Duration timeBudget = Duration.ofSeconds(30);
+        private Predicate<Throwable> retryable = TransactionRetryExecutor::isTransient;
+        private AttemptListener listener = AttemptListener.NONE;
+
+        private Builder() {
+        }
+
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder timeBudget(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        public Builder retryOn(Predicate<Throwable> retryable) {
+            this.retryable = retryable;
+            return this;
+        }
+
+        public Builder listener(AttemptListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public TransactionRetryExecutor build() {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("Must make at least one attempt, was " + maxAttempts);
+            }
+            return new TransactionRetryExecutor(this);
+        }
+    }
+}
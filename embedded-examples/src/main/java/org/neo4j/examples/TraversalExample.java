@@ -24,6 +24,7 @@ import static java.lang.System.out;
 import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 
 import java.io.IOException;
+import java.util.stream.Stream;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.graphdb.Direction;
@@ -173,6 +174,33 @@ public class TraversalExample {
         return output;
     }
 
+    /**
+     * Streams the paths of the base traversal one at a time, instead of collecting them like
+     * {@link #traverseBaseTraverser(Node)}. Closing the stream ends the traversal.
+     */
+    public Stream<Path> friendPaths(Node node) {
+        return friendsTraversal.traverse(node).iterator().stream();
+    }
+
+    /**
+     * Streams the paths of {@link #depth3(Node)} one at a time.
+     */
+    public Stream<Path> depth3Paths(Node node) {
+        return friendsTraversal
+                .evaluator(Evaluators.toDepth(3))
+                .traverse(node).iterator().stream();
+    }
+
+    /**
+     * Streams the paths of {@link #depth4(Node)} one at a time.
+     */
+    public Stream<Path> depth4Paths(Node node) {
+        return friendsTraversal
+                .evaluator(Evaluators.fromDepth(2))
+                .evaluator(Evaluators.toDepth(4))
+                .traverse(node).iterator().stream();
+    }
+
     // tag::sourceRels[]
     private enum Rels implements RelationshipType {
         LIKES,
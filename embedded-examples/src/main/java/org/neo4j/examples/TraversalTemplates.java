@@ -0,0 +1,373 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.graphdb.traversal.TraversalMetadata;
+import org.neo4j.graphdb.traversal.Traverser;
+import org.neo4j.internal.helpers.collection.PrefetchingResourceIterator;
+
+/**
+ * A registry of named traversals that are set up once and then run in any transaction.
+ * <p>
+ * A traversal description is tied to the transaction it was created from, so it has to be created
+ * again for every transaction. A template is the recipe for a description: the evaluators, expanders
+ * and other parts it refers to are created once, when the template is registered, and binding it to
+ * a transaction only applies them to a fresh description.
+ * <p>
+ * Every template also counts how it is used: how many traversals it ran, how many paths those
+ * visited and returned, and how long was spent traversing. Templates registered with their expander
+ * also count the nodes expanded from and the relationships the expander filtered out. Only
+ * traversals run through {@link #traverse(String, Transaction, Node)} are counted.
+ * <pre>
+ * TraversalTemplates templates = new TraversalTemplates()
+ *         .register("friends", td -> td.breadthFirst()
+ *                 .relationships(KNOWS, Direction.OUTGOING)
+ *                 .evaluator(Evaluators.excludeStartPosition()));
+ *
+ * try (Transaction tx = db.beginTx()) {
+ *     for (Path path : templates.traverse("friends", tx, neo)) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class TraversalTemplates {
+    private final Map<String,Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a template, replacing any earlier template with the same name.
+     *
+     * @param definition applied to a fresh {@link Transaction#traversalDescription()} every time the template
+     * is bound. It should only refer to evaluators and expanders that were created up front.
+     */
+    public TraversalTemplates register(String name, UnaryOperator<TraversalDescription> definition) {
+        templates.put(name, new Template(null, definition));
+        return this;
+    }
+
+    /**
+     * Registers a template that expands with the given expander, replacing any earlier template with
+     * the same name. The expander is counted, so the definition should not set another one.
+     */
+    public TraversalTemplates register(String name, PathExpander<?> expander,
+            UnaryOperator<TraversalDescription> definition) {
+        templates.put(name, new Template(expander, definition));
+        return this;
+    }
+
+    /**
+     * Binds the named template to the given transaction. Traversals of the returned description are
+     * not counted.
+     */
+    public TraversalDescription bind(String name, Transaction transaction) {
+        return template(name).bind(transaction);
+    }
+
+    /**
+     * Runs the named template from the given start node, timing the traversal while it is being iterated.
+     */
+    public Traverser traverse(String name, Transaction transaction, Node startNode) {
+        Template template = template(name);
+        template.traversals.increment();
+        return new TimedTraverser(template.bindCounted(transaction).traverse(startNode), template);
+    }
+
+    public Counters counters(String name) {
+        return template(name);
+    }
+
+    private Template template(String name) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No traversal template named '" + name + "'");
+        }
+        return template;
+    }
+
+    /**
+     * What a template has done so far, accumulated over all traversals.
+     */
+    public interface Counters {
+        long traversals();
+
+        /**
+         * Paths visited by the traversals, including the ones that the evaluators of the template
+         * pruned and that were never expanded from.
+         */
+        long visited();
+
+        /**
+         * Paths returned by the traversals.
+         */
+        long returned();
+
+        /**
+         * Paths visited but left out of the result, or pruned, by the evaluators of the template.
+         */
+        default long excluded() {
+            return visited() - returned();
+        }
+
+        /**
+         * Nodes the traversals expanded from, for templates registered with their expander.
+         */
+        long expanded();
+
+        /**
+         * Relationships of the expanded nodes that the expander didn't follow, for templates registered
+         * with their expander. A traversal that isn't iterated to its end counts the relationships it
+         * didn't get to as well.
+         */
+        long filtered();
+
+        long nanos();
+    }
+
+    private static class Template implements Counters {
+        private final PathExpander<?> expander;
+        private final UnaryOperator<TraversalDescription> definition;
+        private final CountingEvaluator counter;
+        private final CountingExpander<?> countingExpander;
+        private final LongAdder traversals = new LongAdder();
+        private final LongAdder returned = new LongAdder();
+        private final LongAdder expanded = new LongAdder();
+        private final LongAdder considered = new LongAdder();
+        private final LongAdder followed = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Template(PathExpander<?> expander, UnaryOperator<TraversalDescription> definition) {
+            this.expander = expander;
+            this.definition = definition;
+            this.counter = new CountingEvaluator();
+            this.countingExpander = expander == null ? null : new CountingExpander<>(expander, this);
+        }
+
+        TraversalDescription bind(Transaction transaction) {
+            TraversalDescription description = transaction.traversalDescription();
+            if (expander != null) {
+                description = description.expand(expander);
+            }
+            return definition.apply(description);
+        }
+
+        TraversalDescription bindCounted(Transaction transaction) {
+            // The counter goes first so that it sees every path, whatever the other evaluators decide
+            TraversalDescription description = transaction.traversalDescription().evaluator(counter);
+            if (countingExpander != null) {
+                description = description.expand(countingExpander);
+            }
+            return definition.apply(description);
+        }
+
+        @Override
+        public long traversals() {
+            return traversals.sum();
+        }
+
+        @Override
+        public long visited() {
+            return counter.visited.sum();
+        }
+
+        @Override
+        public long returned() {
+            return returned.sum();
+        }
+
+        @Override
+        public long expanded() {
+            return expanded.sum();
+        }
+
+        @Override
+        public long filtered() {
+            return considered.sum() - followed.sum();
+        }
+
+        @Override
+        public long nanos() {
+            return nanos.sum();
+        }
+    }
+
+    /**
+     * Counts the nodes expanded from, all their relationships, and the ones the wrapped expander follows.
+     */
+    private static class CountingExpander<STATE> implements PathExpander<STATE> {
+        private final PathExpander<STATE> expander;
+        private final Template template;
+
+        CountingExpander(PathExpander<STATE> expander, Template template) {
+            this.expander = expander;
+            this.template = template;
+        }
+
+        @Override
+        public ResourceIterable<Relationship> expand(Path path, BranchState<STATE> state) {
+            template.expanded.increment();
+            template.considered.add(path.endNode().getDegree());
+            ResourceIterable<Relationship> relationships = expander.expand(path, state);
+            return new ResourceIterable<>() {
+                @Override
+                public ResourceIterator<Relationship> iterator() {
+                    ResourceIterator<Relationship> iterator = relationships.iterator();
+                    return new PrefetchingResourceIterator<>() {
+                        @Override
+                        protected Relationship fetchNextOrNull() {
+                            if (iterator.hasNext()) {
+                                template.followed.increment();
+                                return iterator.next();
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public void close() {
+                            iterator.close();
+                        }
+                    };
+                }
+
+                @Override
+                public void close() {
+                    relationships.close();
+                }
+            };
+        }
+
+        @Override
+        public PathExpander<STATE> reverse() {
+            return new CountingExpander<>(expander.reverse(), template);
+        }
+    }
+
+    private static class CountingEvaluator implements Evaluator {
+        private final LongAdder visited = new LongAdder();
+
+        @Override
+        public Evaluation evaluate(Path path) {
+            visited.increment();
+            return Evaluation.INCLUDE_AND_CONTINUE;
+        }
+    }
+
+    private static class TimedTraverser implements Traverser {
+        private final Traverser traverser;
+        private final Template template;
+
+        TimedTraverser(Traverser traverser, Template template) {
+            this.traverser = traverser;
+            this.template = template;
+        }
+
+        @Override
+        public ResourceIterable<Node> nodes() {
+            return map(Path::endNode);
+        }
+
+        @Override
+        public ResourceIterable<Relationship> relationships() {
+            return map(Path::lastRelationship);
+        }
+
+        @Override
+        public ResourceIterator<Path> iterator() {
+            ResourceIterator<Path> paths = traverser.iterator();
+            return new PrefetchingResourceIterator<>() {
+                @Override
+                protected Path fetchNextOrNull() {
+                    long start = System.nanoTime();
+                    try {
+                        if (paths.hasNext()) {
+                            template.returned.increment();
+                            return paths.next();
+                        }
+                        return null;
+                    }
+                    finally {
+                        template.nanos.add(System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void close() {
+                    paths.close();
+                }
+            };
+        }
+
+        @Override
+        public TraversalMetadata metadata() {
+            return traverser.metadata();
+        }
+
+        @Override
+        public void close() {
+            traverser.close();
+        }
+
+        private <T> ResourceIterable<T> map(Function<Path,T> mapper) {
+            return new ResourceIterable<>() {
+                @Override
+                public ResourceIterator<T> iterator() {
+                    ResourceIterator<Path> paths = TimedTraverser.this.iterator();
+                    return new PrefetchingResourceIterator<>() {
+                        @Override
+                        protected T fetchNextOrNull() {
+                            while (paths.hasNext()) {
+                                // The start path has no last relationship, skip it like the traverser itself does
+                                T item = mapper.apply(paths.next());
+                                if (item != null) {
+                                    return item;
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public void close() {
+                            paths.close();
+                        }
+                    };
+                }
+
+                @Override
+                public void close() {
+                    TimedTraverser.this.close();
+                }
+            };
+        }
+    }
+}
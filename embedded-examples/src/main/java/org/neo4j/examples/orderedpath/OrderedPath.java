@@ -21,9 +21,12 @@ package org.neo4j.examples.orderedpath;
 import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 import static org.neo4j.graphdb.RelationshipType.withName;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
@@ -40,6 +43,7 @@ import org.neo4j.graphdb.traversal.Uniqueness;
 public class OrderedPath {
     private static final RelationshipType REL1 = withName("REL1"), REL2 = withName("REL2"),
             REL3 = withName("REL3");
+    private static final OrderedPathMatcher ORDERED_PATH_MATCHER = OrderedPathMatcher.of(Direction.BOTH, REL1, REL2, REL3);
     static final java.nio.file.Path databaseDirectory = java.nio.file.Path.of("target/neo4j-orderedpath-db");
     private final DatabaseManagementService managementService;
     GraphDatabaseService db;
@@ -110,6 +114,13 @@ public class OrderedPath {
         return td;
     }
 
+    /**
+     * Finds the same paths as {@link #findPaths(Transaction)}, only expanding relationships of the expected types.
+     */
+    public List<Path> matchPaths(Transaction tx, Node A) {
+        return ORDERED_PATH_MATCHER.findPaths(tx.getNodeById(A.getId()));
+    }
+
     String printPaths(Transaction tx, TraversalDescription td, Node A) {
         String output = "";
         // tag::printPath[]
@@ -123,6 +134,18 @@ public class OrderedPath {
         return output;
     }
 
+    /**
+     * Writes the paths of {@link #printPaths(Transaction, TraversalDescription, Node)} to {@code output} as they are
+     * found, instead of building one string of all of them.
+     */
+    void writePaths(Transaction tx, TraversalDescription td, Node A, Appendable output) throws IOException {
+        PathPrinter pathPrinter = new PathPrinter("name");
+        for (Path path : td.traverse(tx.getNodeById(A.getId()))) {
+            output.append(Paths.pathToString(path, pathPrinter));
+        }
+        output.append("\n");
+    }
+
     // tag::pathPrinter[]
     static class PathPrinter implements Paths.PathDescriptor<Path> {
         private final String nodePropertyKey;
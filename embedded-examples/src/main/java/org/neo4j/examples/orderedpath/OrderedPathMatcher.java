@@ -0,0 +1,235 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples.orderedpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.traversal.Paths;
+
+/**
+ * Finds paths that follow a fixed sequence of relationship types, like the evaluator in
+ * {@link OrderedPath#findPaths(org.neo4j.graphdb.Transaction)}, without visiting branches that can't match.
+ * <p>
+ * Instead of expanding every relationship and discarding the paths whose last relationship has the
+ * wrong type, only relationships of the type expected at the current depth are asked for, which the
+ * store can select by type. The search is depth first on an explicit stack, and a node is not visited
+ * twice on the same path, which is checked against the ids of the nodes on the stack rather than with
+ * a set per path.
+ * <p>
+ * A matcher holds no state between searches and can be shared between threads and transactions.
+ */
+public final class OrderedPathMatcher {
+    private final Direction direction;
+    private final RelationshipType[] sequence;
+
+    private OrderedPathMatcher(Direction direction, RelationshipType[] sequence) {
+        this.direction = direction;
+        this.sequence = sequence;
+    }
+
+    public static OrderedPathMatcher of(Direction direction, RelationshipType... sequence) {
+        if (sequence.length == 0) {
+            throw new IllegalArgumentException("Need at least one relationship type to match");
+        }
+        return new OrderedPathMatcher(direction, sequence.clone());
+    }
+
+    public List<Path> findPaths(Node start) {
+        List<Path> paths = new ArrayList<>();
+        forEachPath(start, paths::add);
+        return paths;
+    }
+
+    /**
+     * Calls {@code consumer} with every path from {@code start} that matches the sequence, in depth first order.
+     */
+    public void forEachPath(Node start, Consumer<Path> consumer) {
+        int length = sequence.length;
+        Node[] nodes = new Node[length + 1];
+        long[] nodeIds = new long[length + 1];
+        Relationship[] relationships = new Relationship[length];
+        @SuppressWarnings("unchecked")
+        ResourceIterator<Relationship>[] expansions = new ResourceIterator[length];
+
+        nodes[0] = start;
+        nodeIds[0] = start.getId();
+        expansions[0] = expand(start, 0);
+        int depth = 0;
+        try {
+            while (depth >= 0) {
+                if (!expansions[depth].hasNext()) {
+                    expansions[depth].close();
+                    expansions[depth] = null;
+                    depth--;
+                    continue;
+                }
+                Relationship relationship = expansions[depth].next();
+                Node next = relationship.getOtherNode(nodes[depth]);
+                long nextId = next.getId();
+                if (onPath(nodeIds, depth, nextId)) {
+                    continue;
+                }
+                relationships[depth] = relationship;
+                if (depth + 1 == length) {
+                    consumer.accept(toPath(nodes, next, relationships));
+                    continue;
+                }
+                depth++;
+                nodes[depth] = next;
+                nodeIds[depth] = nextId;
+                expansions[depth] = expand(next, depth);
+            }
+        }
+        finally {
+            for (ResourceIterator<Relationship> expansion : expansions) {
+                if (expansion != null) {
+                    expansion.close();
+                }
+            }
+        }
+    }
+
+    private ResourceIterator<Relationship> expand(Node node, int depth) {
+        return node.getRelationships(direction, sequence[depth]).iterator();
+    }
+
+    private static boolean onPath(long[] nodeIds, int depth, long nodeId) {
+        for (int i = 0; i <= depth; i++) {
+            if (nodeIds[i] == nodeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path toPath(Node[] nodes, Node end, Relationship[] relationships) {
+        Node[] pathNodes = Arrays.copyOf(nodes, nodes.length);
+        pathNodes[pathNodes.length - 1] = end;
+        return new MatchedPath(pathNodes, relationships.clone());
+    }
+
+    /**
+     * A path of at least one relationship, backed by the arrays of its nodes and relationships.
+     */
+    private static final class MatchedPath implements Path {
+        private final Node[] nodes;
+        private final Relationship[] relationships;
+
+        MatchedPath(Node[] nodes, Relationship[] relationships) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+        }
+
+        @Override
+        public Node startNode() {
+            return nodes[0];
+        }
+
+        @Override
+        public Node endNode() {
+            return nodes[nodes.length - 1];
+        }
+
+        @Override
+        public Relationship lastRelationship() {
+            return relationships[relationships.length - 1];
+        }
+
+        @Override
+        public Iterable<Relationship> relationships() {
+            return Arrays.asList(relationships);
+        }
+
+        @Override
+        public Iterable<Relationship> reverseRelationships() {
+            return reversed(relationships);
+        }
+
+        @Override
+        public Iterable<Node> nodes() {
+            return Arrays.asList(nodes);
+        }
+
+        @Override
+        public Iterable<Node> reverseNodes() {
+            return reversed(nodes);
+        }
+
+        @Override
+        public int length() {
+            return relationships.length;
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            return new Iterator<>() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position <= 2 * relationships.length;
+                }
+
+                @Override
+                public Entity next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int current = position++;
+                    return current % 2 == 0 ? nodes[current / 2] : relationships[current / 2];
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MatchedPath path
+                    && Arrays.equals(nodes, path.nodes)
+                    && Arrays.equals(relationships, path.relationships);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(nodes) + Arrays.hashCode(relationships);
+        }
+
+        @Override
+        public String toString() {
+            return Paths.defaultPathToString(this);
+        }
+
+        private static <T> List<T> reversed(T[] entities) {
+            List<T> result = new ArrayList<>(Arrays.asList(entities));
+            Collections.reverse(result);
+            return result;
+        }
+    }
+}
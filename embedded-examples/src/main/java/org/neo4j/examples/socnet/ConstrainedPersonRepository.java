@@ -0,0 +1,149 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples.socnet;
+
+import static org.neo4j.examples.Schemas.createUniqueConstraint;
+import static org.neo4j.examples.socnet.RelTypes.A_PERSON;
+
+import java.util.Map;
+import java.util.stream.Stream;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * A person repository that does not funnel every sign-up through one reference node.
+ * <p>
+ * Unique names are guaranteed by a uniqueness constraint on {@code :Person(name)} instead of
+ * by a lock on a shared node, so concurrent sign-ups of different persons do not contend.
+ * Persons are enumerated with a label scan, or a page at a time in name order through the
+ * index backing the constraint.
+ * <p>
+ * Optionally persons are also spread over a fixed number of bucket nodes, by the hash of their
+ * name, so that they can be enumerated bucket by bucket, for example one bucket per thread.
+ */
+public class ConstrainedPersonRepository {
+    private static final Label PERSON = Label.label("Person");
+    private static final Label BUCKET = Label.label("PersonBucket");
+    private static final String BUCKET_ID = "bucket";
+    private static final String PAGE_QUERY =
+            "MATCH (p:Person) WHERE p.name > $after RETURN p ORDER BY p.name LIMIT $limit";
+
+    private final GraphDatabaseService graphDb;
+    private final String[] buckets;
+
+    private ConstrainedPersonRepository(GraphDatabaseService graphDb, String[] buckets) {
+        this.graphDb = graphDb;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Creates the schema, and the bucket nodes if {@code buckets} is positive, unless they already exist.
+     */
+    public static ConstrainedPersonRepository create(GraphDatabaseService graphDb, int buckets) {
+        if (buckets < 0) {
+            throw new IllegalArgumentException("Number of buckets must not be negative, was " + buckets);
+        }
+        createUniqueConstraint(graphDb, PERSON, Person.NAME);
+        if (buckets == 0) {
+            return new ConstrainedPersonRepository(graphDb, new String[0]);
+        }
+
+        createUniqueConstraint(graphDb, BUCKET, BUCKET_ID);
+        String[] bucketIds = new String[buckets];
+        try (Transaction tx = graphDb.beginTx()) {
+            for (int i = 0; i < buckets; i++) {
+                Node bucket = tx.findNode(BUCKET, BUCKET_ID, i);
+                if (bucket == null) {
+                    bucket = tx.createNode(BUCKET);
+                    bucket.setProperty(BUCKET_ID, i);
+                }
+                bucketIds[i] = bucket.getElementId();
+            }
+            tx.commit();
+        }
+        return new ConstrainedPersonRepository(graphDb, bucketIds);
+    }
+
+    public Person createPerson(Transaction transaction, String name) throws Exception {
+        if (transaction.findNode(PERSON, Person.NAME, name) != null) {
+            throw new Exception("Person with this name already exists ");
+        }
+        // A concurrent sign-up with the same name is caught by the constraint when committing
+        Node newPersonNode = transaction.createNode(PERSON);
+        newPersonNode.setProperty(Person.NAME, name);
+        if (buckets.length > 0) {
+            transaction.getNodeByElementId(buckets[bucketOf(name)]).createRelationshipTo(newPersonNode, A_PERSON);
+        }
+        return new Person(graphDb, newPersonNode);
+    }
+
+    public Person getPersonByName(Transaction transaction, String name) {
+        Node personNode = transaction.findNode(PERSON, Person.NAME, name);
+        if (personNode == null) {
+            throw new IllegalArgumentException("Person[" + name
+                    + "] not found");
+        }
+        return new Person(graphDb, personNode);
+    }
+
+    /**
+     * Streams all persons using a label scan. The stream must be closed, or fully consumed,
+     * before the transaction is closed.
+     */
+    public Stream<Person> getAllPersons(Transaction transaction) {
+        ResourceIterator<Node> nodes = transaction.findNodes(PERSON);
+        return nodes.stream().map(node -> new Person(graphDb, node));
+    }
+
+    /**
+     * Returns up to {@code limit} persons in name order, starting after the person named {@code after}.
+     * Pass the empty string to get the first page and the name of the last person of a page to get
+     * the next one. Each page is a seek in the name index, so late pages cost as much as early ones.
+     */
+    public Stream<Person> getPersons(Transaction transaction, String after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative, was " + limit);
+        }
+        ResourceIterator<Node> nodes = transaction.execute(PAGE_QUERY, Map.of("after", after, "limit", limit))
+                .columnAs("p");
+        return nodes.stream().map(node -> new Person(graphDb, node));
+    }
+
+    public int numberOfBuckets() {
+        return buckets.length;
+    }
+
+    /**
+     * Streams the persons in one bucket, {@code bucket} being between 0 and {@link #numberOfBuckets()}.
+     */
+    public Stream<Person> getPersonsInBucket(Transaction transaction, int bucket) {
+        Node bucketNode = transaction.getNodeByElementId(buckets[bucket]);
+        ResourceIterator<Relationship> relationships = bucketNode.getRelationships(Direction.OUTGOING, A_PERSON).iterator();
+        return relationships.stream().map(rel -> new Person(graphDb, rel.getEndNode()));
+    }
+
+    private int bucketOf(String name) {
+        return Math.floorMod(name.hashCode(), buckets.length);
+    }
+}
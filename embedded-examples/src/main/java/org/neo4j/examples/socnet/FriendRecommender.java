@@ -0,0 +1,290 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples.socnet;
+
+import static org.neo4j.examples.socnet.RelTypes.FRIEND;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+
+/**
+ * Recommends people to befriend, ranked by the number of mutual friends.
+ * <p>
+ * Candidates are found in a single two-hop expansion over {@code FRIEND} relationships, counting
+ * how often each friend-of-a-friend is reached in a primitive map. Only the best {@code k} are
+ * kept while counting, so the cost depends on the size of the person's two-hop neighbourhood
+ * and not on the size of the network.
+ * <p>
+ * A recommender created with {@link #cached(DatabaseManagementService, String, int)} also keeps
+ * the latest recommendations per person, and drops them when a {@code FRIEND} relationship that
+ * could change them is created or deleted. Call {@link #close()} to stop listening for changes.
+ */
+public class FriendRecommender implements AutoCloseable {
+    private final GraphDatabaseService databaseService;
+    private final RecommendationCache cache;
+
+    public FriendRecommender(GraphDatabaseService databaseService) {
+        this(databaseService, null);
+    }
+
+    private FriendRecommender(GraphDatabaseService databaseService, RecommendationCache cache) {
+        this.databaseService = databaseService;
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a recommender that caches the recommendations of up to {@code maxEntries} persons,
+     * evicting the least recently used ones first.
+     */
+    public static FriendRecommender cached(DatabaseManagementService managementService, String databaseName,
+            int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive, was " + maxEntries);
+        }
+        RecommendationCache cache = new RecommendationCache(managementService, databaseName, maxEntries);
+        managementService.registerTransactionEventListener(databaseName, cache);
+        return new FriendRecommender(managementService.database(databaseName), cache);
+    }
+
+    /**
+     * Returns at most {@code k} persons who are not yet friends with {@code person}, the one
+     * with the most mutual friends first.
+     */
+    public List<Person> recommend(Transaction transaction, Person person, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of recommendations must not be negative, was " + k);
+        }
+        long personId = person.getId();
+        long[] recommended = null;
+        if (cache != null) {
+            recommended = cache.get(personId, k);
+        }
+        if (recommended == null) {
+            long invalidations = cache != null ? cache.invalidations() : 0;
+            recommended = topByMutualFriends(transaction.getNodeById(personId), k);
+            if (cache != null) {
+                cache.put(personId, k, recommended, invalidations);
+            }
+        }
+
+        List<Person> persons = new ArrayList<>(recommended.length);
+        for (long id : recommended) {
+            persons.add(new Person(databaseService, transaction.getNodeById(id)));
+        }
+        return persons;
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.unregister();
+        }
+    }
+
+    private static long[] topByMutualFriends(Node node, int k) {
+        if (k == 0) {
+            return new long[0];
+        }
+        long self = node.getId();
+        List<Node> friends = new ArrayList<>();
+        LongHashSet friendIds = new LongHashSet();
+        try (ResourceIterable<Relationship> relationships = node.getRelationships(FRIEND)) {
+            for (Relationship rel : relationships) {
+                Node friend = rel.getOtherNode(node);
+                if (friendIds.add(friend.getId())) {
+                    friends.add(friend);
+                }
+            }
+        }
+
+        LongIntHashMap mutualFriends = new LongIntHashMap();
+        for (Node friend : friends) {
+            try (ResourceIterable<Relationship> relationships = friend.getRelationships(FRIEND)) {
+                for (Relationship rel : relationships) {
+                    long candidate = rel.getOtherNode(friend).getId();
+                    if (candidate != self && !friendIds.contains(candidate)) {
+                        mutualFriends.addToValue(candidate, 1);
+                    }
+                }
+            }
+        }
+
+        // Min-heap on the score, so the weakest of the current top k is the one to be replaced
+        PriorityQueue<Candidate> top = new PriorityQueue<>(k + 1);
+        mutualFriends.forEachKeyValue((candidate, count) -> {
+            if (top.size() < k) {
+                top.add(new Candidate(candidate, count));
+            }
+            else if (Candidate.compare(candidate, count, top.peek()) > 0) {
+                top.poll();
+                top.add(new Candidate(candidate, count));
+            }
+        });
+
+        long[] result = new long[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().id;
+        }
+        return result;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final long id;
+        final int mutualFriends;
+
+        Candidate(long id, int mutualFriends) {
+            this.id = id;
+            this.mutualFriends = mutualFriends;
+        }
+
+        /**
+         * Orders candidates by mutual friends, breaking ties on the lowest id so that results are stable.
+         */
+        static int compare(long id, int mutualFriends, Candidate other) {
+            int byCount = Integer.compare(mutualFriends, other.mutualFriends);
+            return byCount != 0 ? byCount : Long.compare(other.id, id);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return compare(id, mutualFriends, other);
+        }
+    }
+
+    private static final class RecommendationCache implements TransactionEventListener<MutableLongSet> {
+        private final DatabaseManagementService managementService;
+        private final String databaseName;
+        private final Map<Long,Entry> entries;
+        private final AtomicLong invalidations = new AtomicLong();
+
+        RecommendationCache(DatabaseManagementService managementService, String databaseName, int maxEntries) {
+            this.managementService = managementService;
+            this.databaseName = databaseName;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long,Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized long[] get(long personId, int k) {
+            Entry entry = entries.get(personId);
+            // A top list computed for a larger k starts with the top list for this k
+            if (entry == null || k > entry.k) {
+                return null;
+            }
+            return entry.recommended.length <= k ? entry.recommended : Arrays.copyOf(entry.recommended, k);
+        }
+
+        synchronized void put(long personId, int k, long[] recommended, long invalidationsWhenComputed) {
+            // Something was invalidated while computing, the result may already be stale
+            if (invalidations.get() == invalidationsWhenComputed) {
+                entries.put(personId, new Entry(k, recommended));
+            }
+        }
+
+        long invalidations() {
+            return invalidations.get();
+        }
+
+        void unregister() {
+            managementService.unregisterTransactionEventListener(databaseName, this);
+        }
+
+        @Override
+        public MutableLongSet beforeCommit(TransactionData data, Transaction transaction,
+                GraphDatabaseService databaseService) {
+            MutableLongSet affected = null;
+            for (Relationship rel : data.createdRelationships()) {
+                affected = addAffected(affected, data, rel);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                affected = addAffected(affected, data, rel);
+            }
+            return affected;
+        }
+
+        /**
+         * A changed friendship between two persons changes the recommendations of both of them, and
+         * of everyone who is friends with either one of them.
+         */
+        private static MutableLongSet addAffected(MutableLongSet affected, TransactionData data, Relationship rel) {
+            if (!rel.isType(FRIEND)) {
+                return affected;
+            }
+            if (affected == null) {
+                affected = new LongHashSet();
+            }
+            for (Node node : rel.getNodes()) {
+                affected.add(node.getId());
+                if (!data.isDeleted(node)) {
+                    try (ResourceIterable<Relationship> friendships = node.getRelationships(FRIEND)) {
+                        for (Relationship friendship : friendships) {
+                            affected.add(friendship.getOtherNode(node).getId());
+                        }
+                    }
+                }
+            }
+            return affected;
+        }
+
+        @Override
+        public void afterCommit(TransactionData data, MutableLongSet affected, GraphDatabaseService databaseService) {
+            if (affected == null) {
+                return;
+            }
+            synchronized (this) {
+                invalidations.incrementAndGet();
+                affected.forEach(entries::remove);
+            }
+        }
+
+        @Override
+        public void afterRollback(TransactionData data, MutableLongSet affected,
+                GraphDatabaseService databaseService) {
+        }
+
+        private static final class Entry {
+            final int k;
+            final long[] recommended;
+
+            Entry(int k, long[] recommended) {
+                this.k = k;
+                this.recommended = recommended;
+            }
+        }
+    }
+}
@@ -18,63 +18,205 @@
  */
 package org.neo4j.examples.socnet;
 
+import static org.neo4j.examples.socnet.RelTypes.NEXT;
+
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import org.neo4j.examples.socnet.StatusCursor.Position;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 
-class FriendsStatusUpdateIterator implements Iterator<StatusUpdate> {
-    private final ArrayList<PositionedIterator<StatusUpdate>> statuses = new ArrayList<>();
-    private final StatusUpdateComparator comparator = new StatusUpdateComparator();
+/**
+ * Merges the status streams of all friends of a person into one stream, newest first.
+ * <p>
+ * Every friend's stream is already ordered newest first, so only the head of each stream
+ * needs to be compared. Heads are kept in a priority queue keyed on their timestamp, which
+ * is read from the store once per status, making a page of N updates over F friends cost
+ * O(N log F). Updates posted in the same millisecond are ordered by node id, see
+ * {@link StatusCursor}.
+ */
+public class FriendsStatusUpdateIterator implements Iterator<StatusUpdate> {
+    private final PriorityQueue<StatusStream> statuses = new PriorityQueue<>();
+    private final List<StatusStream> streams = new ArrayList<>();
+    private int remaining;
+    private long lastTimestamp;
+    private long lastStatusId;
 
     public FriendsStatusUpdateIterator(Transaction transaction, Person person) {
-        Iterable<Person> friends = person.getFriends(transaction);
-        for (Person friend : friends) {
-            Iterator<StatusUpdate> iterator = friend.getStatus(transaction).iterator();
-            if (iterator.hasNext()) {
-                statuses.add(new PositionedIterator<>(iterator));
+        this(transaction, person, StatusCursor.FIRST, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param after only return status updates that come after this cursor.
+     * @param limit the maximum number of status updates to return.
+     */
+    public FriendsStatusUpdateIterator(Transaction transaction, Person person, StatusCursor after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative, was " + limit);
+        }
+        this.remaining = limit;
+        this.lastTimestamp = after.getTimestamp();
+        this.lastStatusId = after.getStatusId();
+        for (Person friend : person.getFriends(transaction)) {
+            StatusStream stream = new StatusStream(transaction, friend,
+                    resumeAt(transaction, friend, after.positionOf(friend.getId())));
+            streams.add(stream);
+            while (stream.advance()) {
+                if (after.isBefore(stream.timestamp, stream.statusId)) {
+                    statuses.add(stream);
+                    break;
+                }
             }
         }
-
-        sort();
     }
 
     public boolean hasNext() {
-        return statuses.size() > 0;
+        return remaining > 0 && !statuses.isEmpty();
     }
 
     public StatusUpdate next() {
-        if (statuses.size() == 0) {
+        if (!hasNext()) {
             throw new NoSuchElementException();
         }
         // tag::getActivityStream[]
-        PositionedIterator<StatusUpdate> first = statuses.get(0);
-        StatusUpdate returnVal = first.current();
+        StatusStream newest = statuses.poll();
+        StatusUpdate returnVal = newest.current;
+        lastTimestamp = newest.timestamp;
+        lastStatusId = newest.statusId;
 
-        if (!first.hasNext()) {
-            statuses.remove(0);
-        }
-        else {
-            first.next();
-            sort();
+        if (newest.advance()) {
+            statuses.add(newest);
         }
+        remaining--;
 
         return returnVal;
         // end::getActivityStream[]
     }
 
-    private void sort() {
-        statuses.sort(comparator);
+    /**
+     * @return the cursor to read the page following the status updates returned so far with.
+     */
+    public StatusCursor cursor() {
+        Map<Long, Position> positions = new HashMap<>();
+        for (StatusStream stream : streams) {
+            positions.put(stream.friendId, stream.position());
+        }
+        return new StatusCursor(lastTimestamp, lastStatusId, positions);
     }
 
     public void remove() {
         throw new UnsupportedOperationException("Don't know how to do that...");
     }
 
-    private class StatusUpdateComparator implements Comparator<PositionedIterator<StatusUpdate>> {
-        public int compare(PositionedIterator<StatusUpdate> a, PositionedIterator<StatusUpdate> b) {
-            return a.current().getDate().compareTo(b.current().getDate());
+    /**
+     * Finds where to start reading the status chain of a friend: where the previous page left
+     * it if that status still exists, otherwise at the newest status of the friend.
+     *
+     * @return the status node to start at, or {@code null} if there is nothing left to read.
+     */
+    private static Node resumeAt(Transaction transaction, Person friend, Position position) {
+        if (position != null) {
+            if (position.isExhausted()) {
+                return null;
+            }
+            try {
+                Node status = transaction.getNodeById(position.statusId());
+                Object timestamp = status.getProperty(StatusUpdate.DATE, null);
+                if (timestamp instanceof Long && (Long) timestamp == position.timestamp()) {
+                    return status;
+                }
+            }
+            catch (NotFoundException e) {
+                // The status was deleted since the previous page, start over from the newest one
+            }
+        }
+        return friend.getNewestStatusNode(transaction);
+    }
+
+    /**
+     * The status chain of one friend, read one timestamp at a time. Updates sharing a timestamp
+     * are buffered and sorted by node id, which keeps the stream in cursor order whatever order
+     * they were chained in.
+     */
+    private static class StatusStream implements Comparable<StatusStream> {
+        private static final Comparator<StatusUpdate> BY_NODE_ID_DESCENDING =
+                Comparator.comparingLong((StatusUpdate status) -> status.getUnderlyingNode().getId()).reversed();
+
+        private final Transaction transaction;
+        private final Person friend;
+        private final long friendId;
+        private final List<StatusUpdate> run = new ArrayList<>();
+        private Node runStart;
+        private long runTimestamp;
+        private Node next;
+        private int index;
+        private boolean exhausted;
+        private StatusUpdate current;
+        private long timestamp;
+        private long statusId;
+
+        StatusStream(Transaction transaction, Person friend, Node start) {
+            this.transaction = transaction;
+            this.friend = friend;
+            this.friendId = friend.getId();
+            this.next = start;
+            this.exhausted = start == null;
+        }
+
+        boolean advance() {
+            if (exhausted) {
+                return false;
+            }
+            if (++index >= run.size() && !readRun()) {
+                exhausted = true;
+                current = null;
+                return false;
+            }
+            current = run.get(index);
+            timestamp = runTimestamp;
+            statusId = current.getUnderlyingNode().getId();
+            return true;
+        }
+
+        private boolean readRun() {
+            run.clear();
+            index = 0;
+            if (next == null) {
+                return false;
+            }
+            runStart = next;
+            runTimestamp = timestampOf(next);
+            do {
+                run.add(friend.toStatusUpdate(transaction, next));
+                Relationship older = next.getSingleRelationship(NEXT, Direction.OUTGOING);
+                next = older == null ? null : older.getEndNode();
+            }
+            while (next != null && timestampOf(next) == runTimestamp);
+            run.sort(BY_NODE_ID_DESCENDING);
+            return true;
+        }
+
+        Position position() {
+            return exhausted ? Position.EXHAUSTED : new Position(runStart.getId(), runTimestamp);
+        }
+
+        private static long timestampOf(Node status) {
+            return (Long) status.getProperty(StatusUpdate.DATE);
+        }
+
+        @Override
+        public int compareTo(StatusStream other) {
+            int byTimestamp = Long.compare(other.timestamp, timestamp);
+            return byTimestamp != 0 ? byTimestamp : Long.compare(other.statusId, statusId);
         }
     }
 }
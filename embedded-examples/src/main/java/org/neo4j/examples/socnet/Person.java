@@ -18,7 +18,6 @@
  */
 package org.neo4j.examples.socnet;
 
-import static com.google.common.collect.Iterables.addAll;
 import static org.neo4j.examples.socnet.RelTypes.FRIEND;
 import static org.neo4j.examples.socnet.RelTypes.NEXT;
 import static org.neo4j.examples.socnet.RelTypes.STATUS;
@@ -26,11 +25,8 @@ import static org.neo4j.graphdb.Direction.BOTH;
 import static org.neo4j.graphdb.PathExpanders.forTypeAndDirection;
 
 import com.google.common.collect.Iterables;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.Iterator;
 import org.neo4j.graphalgo.BasicEvaluationContext;
 import org.neo4j.graphalgo.GraphAlgoFactory;
@@ -40,12 +36,14 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.traversal.Evaluators;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.neo4j.graphdb.traversal.Traverser;
 import org.neo4j.graphdb.traversal.Uniqueness;
 import org.neo4j.internal.helpers.collection.IterableWrapper;
+import org.neo4j.internal.helpers.collection.PrefetchingIterator;
 
 public class Person {
     static final String NAME = "name";
@@ -137,24 +135,7 @@ public class Person {
     }
 
     public Iterable<Person> getFriendRecommendation(Transaction transaction, int numberOfFriendsToReturn) {
-        HashSet<Person> friends = new HashSet<>();
-        addAll(friends, getFriends(transaction));
-
-        HashSet<Person> friendsOfFriends = new HashSet<>();
-        addAll(friendsOfFriends, getFriendsOfFriends(transaction));
-
-        friendsOfFriends.removeAll(friends);
-
-        ArrayList<RankedPerson> rankedFriends = new ArrayList<>();
-        for (Person friend : friendsOfFriends) {
-            long rank = getNumberOfPathsToPerson(transaction, friend);
-            rankedFriends.add(new RankedPerson(friend, rank));
-        }
-
-        rankedFriends.sort(new RankedComparer());
-        trimTo(rankedFriends, numberOfFriendsToReturn);
-
-        return onlyFriend(rankedFriends);
+        return new FriendRecommender(databaseService).recommend(transaction, this, numberOfFriendsToReturn);
     }
 
     public Iterable<StatusUpdate> getStatus(Transaction transaction) {
@@ -179,84 +160,112 @@ public class Person {
         };
     }
 
-    public Iterator<StatusUpdate> friendStatuses(Transaction transaction) {
-        return new FriendsStatusUpdateIterator(transaction, this);
-    }
-
-    public void addStatus(Transaction transaction, String text) {
-        StatusUpdate oldStatus;
-        if (getStatus(transaction).iterator().hasNext()) {
-            oldStatus = getStatus(transaction).iterator().next();
-        }
-        else {
-            oldStatus = null;
-        }
-
-        Node newStatus = createNewStatusNode(transaction, text);
-
-        if (oldStatus != null) {
-            underlyingNode.getSingleRelationship(RelTypes.STATUS, Direction.OUTGOING).delete();
-            newStatus.createRelationshipTo(oldStatus.getUnderlyingNode(), RelTypes.NEXT);
+    /**
+     * Returns the status updates of this person posted within a time window, newest first.
+     * <p>
+     * The status chain is walked from the newest update and the walk stops as soon as an
+     * update older than {@code since} is reached or {@code limit} updates have been returned,
+     * so reading the latest updates of a prolific poster costs no more than of anyone else.
+     *
+     * @param since only return updates posted at or after this timestamp, in milliseconds.
+     * @param until only return updates posted before this timestamp, in milliseconds.
+     * @param limit the maximum number of updates to return.
+     */
+    public Iterable<StatusUpdate> getStatus(Transaction transaction, long since, long until, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative, was " + limit);
         }
+        Node node = transaction.getNodeById(underlyingNode.getId());
+        return () -> new PrefetchingIterator<>() {
+            private Node next = headOfStatusChain(node);
+            private int returned;
 
-        underlyingNode.createRelationshipTo(newStatus, RelTypes.STATUS);
+            @Override
+            protected StatusUpdate fetchNextOrNull() {
+                while (next != null && returned < limit) {
+                    StatusUpdate status = new StatusUpdate(databaseService, transaction, next);
+                    long timestamp = status.getTimestamp();
+                    if (timestamp < since) {
+                        next = null;
+                        break;
+                    }
+                    Relationship older = next.getSingleRelationship(NEXT, Direction.OUTGOING);
+                    next = older == null ? null : older.getEndNode();
+                    if (timestamp < until) {
+                        returned++;
+                        return status;
+                    }
+                }
+                return null;
+            }
+        };
     }
 
-    private Node createNewStatusNode(Transaction transaction, String text) {
-        Node newStatus = transaction.createNode();
-        newStatus.setProperty(StatusUpdate.TEXT, text);
-        newStatus.setProperty(StatusUpdate.DATE, new Date().getTime());
-        return newStatus;
+    public Iterator<StatusUpdate> friendStatuses(Transaction transaction) {
+        return new FriendsStatusUpdateIterator(transaction, this);
     }
 
-    private final class RankedPerson {
-        final Person person;
+    /**
+     * Returns a page of the activity stream of this person's friends, newest first.
+     * <p>
+     * Read the first page with {@link StatusCursor#FIRST}, and every following page with the
+     * {@link FriendsStatusUpdateIterator#cursor() cursor} of the page before it.
+     *
+     * @param after only return status updates that come after this cursor.
+     * @param limit the maximum number of status updates to return.
+     */
+    public FriendsStatusUpdateIterator friendStatuses(Transaction transaction, StatusCursor after, int limit) {
+        return new FriendsStatusUpdateIterator(transaction, this, after, limit);
+    }
 
-        final long rank;
+    public void addStatus(Transaction transaction, String text) {
+        Relationship oldHead = underlyingNode.getSingleRelationship(STATUS, Direction.OUTGOING);
 
-        private RankedPerson(Person person, long rank) {
+        Node newStatus = createNewStatusNode(transaction, text);
 
-            this.person = person;
-            this.rank = rank;
+        if (oldHead != null) {
+            newStatus.createRelationshipTo(oldHead.getEndNode(), NEXT);
+            oldHead.delete();
         }
 
-        public Person getPerson() {
-            return person;
-        }
+        underlyingNode.createRelationshipTo(newStatus, STATUS);
+    }
 
-        public long getRank() {
-            return rank;
-        }
+    Node getNewestStatusNode(Transaction transaction) {
+        return headOfStatusChain(transaction.getNodeById(underlyingNode.getId()));
     }
 
-    private class RankedComparer implements Comparator<RankedPerson> {
-        @Override
-        public int compare(RankedPerson a, RankedPerson b) {
-            return Long.compare(b.getRank(), a.getRank());
-        }
+    StatusUpdate toStatusUpdate(Transaction transaction, Node statusNode) {
+        return new StatusUpdate(databaseService, transaction, statusNode);
     }
 
-    private void trimTo(ArrayList<RankedPerson> rankedFriends,
-            int numberOfFriendsToReturn) {
-        while (rankedFriends.size() > numberOfFriendsToReturn) {
-            rankedFriends.remove(rankedFriends.size() - 1);
-        }
+    private static Node headOfStatusChain(Node node) {
+        Relationship head = node.getSingleRelationship(STATUS, Direction.OUTGOING);
+        return head == null ? null : head.getEndNode();
     }
 
-    private Iterable<Person> onlyFriend(Iterable<RankedPerson> rankedFriends) {
-        ArrayList<Person> retVal = new ArrayList<>();
-        for (RankedPerson person : rankedFriends) {
-            retVal.add(person.getPerson());
-        }
-        return retVal;
+    private Node createNewStatusNode(Transaction transaction, String text) {
+        Node newStatus = transaction.createNode();
+        newStatus.setProperty(StatusUpdate.TEXT, text);
+        newStatus.setProperty(StatusUpdate.DATE, new Date().getTime());
+        return newStatus;
     }
 
     private Relationship getFriendRelationshipTo(Transaction transaction, Person otherPerson) {
-        Node otherNode = otherPerson.getUnderlyingNode();
         Node node = transaction.getNodeById(underlyingNode.getId());
-        for (Relationship rel : node.getRelationships(FRIEND)) {
-            if (rel.getOtherNode(node).equals(otherNode)) {
-                return rel;
+        Node otherNode = transaction.getNodeById(otherPerson.getUnderlyingNode().getId());
+        // Degrees are cheap to get, so scan the friends of whichever of the two has fewer,
+        // that way befriending someone with millions of followers costs no more than befriending anyone else
+        if (otherNode.getDegree(FRIEND) < node.getDegree(FRIEND)) {
+            Node swap = node;
+            node = otherNode;
+            otherNode = swap;
+        }
+        try (ResourceIterable<Relationship> relationships = node.getRelationships(FRIEND)) {
+            for (Relationship rel : relationships) {
+                if (rel.getOtherNode(node).equals(otherNode)) {
+                    return rel;
+                }
             }
         }
         return null;
@@ -284,13 +293,6 @@ public class Person {
         };
     }
 
-    private long getNumberOfPathsToPerson(Transaction transaction, Person otherPerson) {
-        PathFinder<Path> finder = GraphAlgoFactory.allPaths(new BasicEvaluationContext(transaction, databaseService),
-                forTypeAndDirection(FRIEND, BOTH), 2);
-        Iterable<Path> paths = finder.findAllPaths(transaction.getNodeById(getUnderlyingNode().getId()), otherPerson.getUnderlyingNode());
-        return Iterables.size(paths);
-    }
-
     private Iterable<Person> createPersonsFromNodes(final Path path) {
         return new IterableWrapper<>(path.nodes()) {
             @Override
@@ -19,14 +19,21 @@
 package org.neo4j.examples.socnet;
 
 import static org.neo4j.examples.socnet.RelTypes.A_PERSON;
+import static org.neo4j.examples.socnet.RelTypes.FRIEND;
+import static org.neo4j.examples.socnet.RelTypes.NEXT;
+import static org.neo4j.examples.socnet.RelTypes.STATUS;
 
+import java.util.List;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.IterableWrapper;
+import org.neo4j.internal.helpers.collection.Iterables;
 
 public class PersonRepository {
     private final Label PERSON = Label.label("Person");
@@ -75,22 +82,134 @@ public class PersonRepository {
 
     public void deletePerson(Transaction transaction, Person person) {
         Node personNode = person.getUnderlyingNode();
-        for (Person friend : person.getFriends(transaction)) {
-            person.removeFriend(transaction, friend);
-        }
+        deleteAll(personNode.getRelationships(FRIEND));
         personNode.getSingleRelationship(A_PERSON, Direction.INCOMING).delete();
 
         for (StatusUpdate status : person.getStatus(transaction)) {
             Node statusNode = status.getUnderlyingNode();
-            for (Relationship r : statusNode.getRelationships()) {
-                r.delete();
-            }
+            deleteAll(statusNode.getRelationships());
             statusNode.delete();
         }
 
         personNode.delete();
     }
 
+    /**
+     * Deletes a person in a series of transactions, each deleting at most around {@code batchSize}
+     * friendships or status updates, so that deleting a person with a huge number of friends or
+     * status updates does not need a huge transaction.
+     * <p>
+     * The graph is consistent after every batch: friendships are removed first, then the status
+     * chain from its newest end, keeping the remainder attached to the person. If deleting fails
+     * half way, calling this again with the same person picks up where it stopped.
+     * <p>
+     * Every batch checks that the node is still this person, by its name and its membership of
+     * this repository, since the node may have been deleted by someone else in between, and its
+     * id reused for a new node.
+     */
+    public void deletePerson(Person person, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+        long personId = person.getId();
+        String name;
+        try (Transaction tx = graphDb.beginTx()) {
+            name = (String) tx.getNodeById(personId).getProperty(Person.NAME);
+        }
+        while (deleteBatch(personId, name, batchSize)) {
+            // keep going until the person is gone
+        }
+    }
+
+    /**
+     * @return {@code true} if there is more to delete.
+     */
+    private boolean deleteBatch(long personId, String name, int batchSize) {
+        try (Transaction tx = graphDb.beginTx()) {
+            Node personNode = findPerson(tx, personId, name);
+            if (personNode == null) {
+                return false;
+            }
+
+            boolean more = deleteFriendships(personNode, batchSize) || deleteStatuses(personNode, batchSize);
+            if (!more) {
+                deleteAll(personNode.getRelationships());
+                personNode.delete();
+            }
+            tx.commit();
+            return more;
+        }
+    }
+
+    /**
+     * @return the node with the given id if it is still the named person of this repository,
+     * otherwise {@code null}.
+     */
+    private Node findPerson(Transaction tx, long personId, String name) {
+        Node node;
+        try {
+            node = tx.getNodeById(personId);
+        }
+        catch (NotFoundException e) {
+            return null;
+        }
+        if (!name.equals(node.getProperty(Person.NAME, null))) {
+            return null;
+        }
+        try (ResourceIterable<Relationship> memberships = node.getRelationships(Direction.INCOMING, A_PERSON)) {
+            for (Relationship membership : memberships) {
+                if (membership.getStartNode().getId() == personRefNode.getId()) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void deleteAll(ResourceIterable<Relationship> relationships) {
+        // Don't delete from under the iterator
+        List<Relationship> toDelete;
+        try (relationships) {
+            toDelete = Iterables.asList(relationships);
+        }
+        for (Relationship relationship : toDelete) {
+            relationship.delete();
+        }
+    }
+
+    private static boolean deleteFriendships(Node personNode, int batchSize) {
+        int deleted = 0;
+        try (ResourceIterable<Relationship> friendships = personNode.getRelationships(FRIEND)) {
+            for (Relationship friendship : friendships) {
+                if (deleted == batchSize) {
+                    return true;
+                }
+                friendship.delete();
+                deleted++;
+            }
+        }
+        return deleted > 0;
+    }
+
+    private static boolean deleteStatuses(Node personNode, int batchSize) {
+        Relationship head = personNode.getSingleRelationship(STATUS, Direction.OUTGOING);
+        if (head == null) {
+            return false;
+        }
+        Node status = head.getEndNode();
+        for (int deleted = 0; status != null && deleted < batchSize; deleted++) {
+            Relationship next = status.getSingleRelationship(NEXT, Direction.OUTGOING);
+            Node older = next == null ? null : next.getEndNode();
+            deleteAll(status.getRelationships());
+            status.delete();
+            status = older;
+        }
+        if (status != null) {
+            personNode.createRelationshipTo(status, STATUS);
+        }
+        return true;
+    }
+
     public Iterable<Person> getAllPersons(Transaction transaction) {
         return new IterableWrapper<>(transaction.getNodeById(personRefNode.getId()).getRelationships(A_PERSON)) {
             @Override
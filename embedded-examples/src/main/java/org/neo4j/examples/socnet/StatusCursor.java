@@ -0,0 +1,89 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples.socnet;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Marks where a page of a friends activity stream ended.
+ * <p>
+ * Status updates are ordered newest first by timestamp, and by status node id among updates
+ * posted in the same millisecond, so a cursor on (timestamp, node id) neither skips nor repeats
+ * updates that share the timestamp of a page boundary. The cursor also remembers how far into
+ * every friend's status chain the previous page got, so the next page continues from there
+ * instead of walking each chain from its newest update again.
+ */
+public final class StatusCursor {
+    /**
+     * The cursor to read the first page with.
+     */
+    public static final StatusCursor FIRST = new StatusCursor(Long.MAX_VALUE, Long.MAX_VALUE, Collections.emptyMap());
+
+    private final long timestamp;
+    private final long statusId;
+    private final Map<Long, Position> positions;
+
+    StatusCursor(long timestamp, long statusId, Map<Long, Position> positions) {
+        this.timestamp = timestamp;
+        this.statusId = statusId;
+        this.positions = positions;
+    }
+
+    /**
+     * @return the timestamp of the last status update of the previous page, in milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the node id of the last status update of the previous page.
+     */
+    public long getStatusId() {
+        return statusId;
+    }
+
+    /**
+     * @return whether a status update with the given timestamp and node id comes after this cursor.
+     */
+    boolean isBefore(long timestamp, long statusId) {
+        return timestamp < this.timestamp || (timestamp == this.timestamp && statusId < this.statusId);
+    }
+
+    /**
+     * @return where the previous page stopped reading the status chain of a friend, or {@code null}
+     * if it did not read it.
+     */
+    Position positionOf(long friendId) {
+        return positions.get(friendId);
+    }
+
+    /**
+     * A position in the status chain of a friend. The status node is kept together with its
+     * timestamp so that a node id reused after the status was deleted is not mistaken for it.
+     */
+    record Position(long statusId, long timestamp) {
+        static final Position EXHAUSTED = new Position(-1, Long.MIN_VALUE);
+
+        boolean isExhausted() {
+            return statusId == -1;
+        }
+    }
+}
@@ -18,15 +18,13 @@
  */
 package org.neo4j.examples;
 
-import static org.neo4j.doc.test.GraphDatabaseServiceCleaner.cleanDatabaseContent;
-
 import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.neo4j.cypher.docgen.tooling.CypherPrettifier;
-import org.neo4j.doc.test.GraphDescription;
+import org.neo4j.doc.test.FixtureCache;
 import org.neo4j.doc.test.TestData;
 import org.neo4j.doc.tools.JavaTestDocsGenerator;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -39,7 +37,7 @@ public abstract class AbstractJavaDocTestBase {
     @RegisterExtension
     final TestData<JavaTestDocsGenerator> gen = TestData.producedThrough(JavaTestDocsGenerator.PRODUCER);
     @RegisterExtension
-    final TestData<Map<String,Node>> data = TestData.producedThrough(GraphDescription.createGraphFor());
+    final TestData<Map<String,Node>> data = TestData.producedThrough(FixtureCache.restoreGraphFor());
 
     protected String createCypherSnippet(String cypherQuery) {
         String snippet = CypherPrettifier.apply(cypherQuery);
@@ -48,7 +46,6 @@ public abstract class AbstractJavaDocTestBase {
 
     @BeforeEach
     public void setUp(GraphDatabaseService graphDb) {
-        cleanDatabaseContent(graphDb);
         gen.setGraphDatabaseService(graphDb);
         data.setGraphDatabaseService(graphDb);
 
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.junit.extension.Neo4jExtension;
+import org.neo4j.procedure.TerminationGuard;
+
+@ExtendWith(Neo4jExtension.class)
+class DegreeScanTest {
+    private static final int NODES = 10 * DegreeScan.BATCH_SIZE;
+
+    @Test
+    void visitsEveryNodeOnce(GraphDatabaseService db) {
+        createNodes(db);
+        Map<Long,Long> degrees = new HashMap<>();
+
+        try (Transaction tx = db.beginTx()) {
+            DegreeScan.scan(db, tx, DegreeScanTest::neverTerminated, 3,
+                    (nodeId, degree) -> assertNull(degrees.put(nodeId, degree)));
+        }
+
+        assertEquals(NODES, degrees.size());
+        assertEquals(NODES / 2, degrees.values().stream().filter(degree -> degree == 1).count());
+    }
+
+    @Test
+    void stopsAllWorkersAtTheFirstFailure(GraphDatabaseService db) {
+        createNodes(db);
+        AtomicInteger checks = new AtomicInteger();
+        TerminationGuard failsOnce = () -> {
+            if (checks.incrementAndGet() == 1_000) {
+                throw new IllegalStateException("Terminated for testing");
+            }
+        };
+
+        try (Transaction tx = db.beginTx()) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                    () -> DegreeScan.scan(db, tx, failsOnce, 2, DegreeScanTest::ignore));
+            assertEquals("Terminated for testing", failure.getCause().getMessage());
+        }
+
+        // The other workers stop as well, instead of computing the rest of the degrees
+        assertTrue(checks.get() < NODES / 2, "Checked the guard " + checks.get() + " times");
+    }
+
+    @Test
+    void runsAtMostConcurrencyWorkersOnSharedDaemonThreads(GraphDatabaseService db) {
+        createNodes(db);
+        Thread caller = Thread.currentThread();
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        TerminationGuard recordsWorkers = () -> {
+            if (Thread.currentThread() != caller) {
+                workers.add(Thread.currentThread());
+            }
+        };
+
+        try (Transaction tx = db.beginTx()) {
+            DegreeScan.scan(db, tx, recordsWorkers, 2, DegreeScanTest::ignore);
+        }
+
+        assertFalse(workers.isEmpty());
+        assertTrue(workers.size() <= 2, "Ran on " + workers);
+        for (Thread worker : workers) {
+            assertTrue(worker.isDaemon());
+            assertTrue(worker.getName().startsWith("degree-scan-"), worker.getName());
+        }
+    }
+
+    private static void neverTerminated() {
+    }
+
+    private static void ignore(long nodeId, long degree) {
+    }
+
+    private static void createNodes(GraphDatabaseService db) {
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("UNWIND range(1, $nodes) AS i CREATE (n) WITH n, i WHERE i % 2 = 0 CREATE (n)-[:SELF]->(n)",
+                    Map.of("nodes", NODES));
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.procedure.GlobalProcedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+/**
+ * Compares {@link ProcedureExample#findDenseNodes(long)} with its batched variant
+ * {@link ProcedureExample#findDenseNodesBatched(long, long)}, reporting rows per second and the number of
+ * bytes allocated per row by the thread consuming the result.
+ * <p>
+ * The name doesn't match the test patterns of the build, so it only runs when asked for, e.g. with
+ * {@code mvn test -Dtest=DenseNodesBenchmark}.
+ */
+@Tag("benchmark")
+class DenseNodesBenchmark {
+    private static final int NODES = 200_000;
+    private static final int RELATIONSHIPS = 1_000_000;
+    private static final int ITERATIONS = 5;
+
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+        ((GraphDatabaseAPI) db).getDependencyResolver().resolveDependency(GlobalProcedures.class)
+                .registerProcedure(ProcedureExample.class);
+        createGraph();
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void compareNaiveAndBatched() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            long naive = run("naive", "CALL org.neo4j.examples.findDenseNodes(0)");
+            long batched = run("batched", "CALL org.neo4j.examples.findDenseNodesBatched(0)");
+            assertEquals(naive, batched);
+        }
+    }
+
+    private void createGraph() {
+        RelationshipType knows = RelationshipType.withName("KNOWS");
+        SplittableRandom random = new SplittableRandom(42);
+        long[] nodes = new long[NODES];
+        try (Transaction tx = db.beginTx()) {
+            for (int i = 0; i < NODES; i++) {
+                nodes[i] = tx.createNode().getId();
+            }
+            tx.commit();
+        }
+        for (int created = 0; created < RELATIONSHIPS; created += 10_000) {
+            try (Transaction tx = db.beginTx()) {
+                for (int i = 0; i < 10_000; i++) {
+                    Node start = tx.getNodeById(nodes[random.nextInt(NODES)]);
+                    start.createRelationshipTo(tx.getNodeById(nodes[random.nextInt(NODES)]), knows);
+                }
+                tx.commit();
+            }
+        }
+    }
+
+    private long run(String name, String query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] rows = new long[1];
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        try (Transaction tx = db.beginTx();
+                Result result = tx.execute(query)) {
+            // Visiting the rows doesn't build a map for each of them, unlike Result.next()
+            result.accept(row -> {
+                rows[0]++;
+                return true;
+            });
+        }
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-8s %10.0f rows/s, %6.1f bytes/row%n", name,
+                rows[0] / (elapsed / 1_000_000_000d), (double) allocated / Math.max(rows[0], 1));
+        return rows[0];
+    }
+}
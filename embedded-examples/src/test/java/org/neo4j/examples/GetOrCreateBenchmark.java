@@ -0,0 +1,124 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+/**
+ * Runs many threads that get or create users from a small set of names at the same time, once per
+ * {@link GetOrCreateStrategy}, and reports throughput and how many transactions had to be retried.
+ * <p>
+ * The name doesn't match the test patterns of the build, so it only runs when asked for, e.g. with
+ * {@code mvn test -Dtest=GetOrCreateBenchmark}.
+ */
+@Tag("benchmark")
+class GetOrCreateBenchmark {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int OPERATIONS_PER_THREAD = 10_000;
+    private static final int USERS = 1_000;
+    private static final int STRIPES = 64;
+
+    @Test
+    void merge() throws InterruptedException {
+        run("merge", db -> GetOrCreateStrategy.merge(db, Label.label("User"), "name"));
+    }
+
+    @Test
+    void optimistic() throws InterruptedException {
+        run("optimistic", db -> GetOrCreateStrategy.optimistic(db, Label.label("User"), "name"));
+    }
+
+    @Test
+    void lockStriped() throws InterruptedException {
+        run("lockStriped", db -> GetOrCreateStrategy.lockStriped(db, Label.label("User"), "name", STRIPES));
+    }
+
+    private static void run(String name, Function<GraphDatabaseService,GetOrCreateStrategy> factory)
+            throws InterruptedException {
+        DatabaseManagementService managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        try {
+            GraphDatabaseService db = managementService.database(DEFAULT_DATABASE_NAME);
+            GetOrCreateStrategy strategy = factory.apply(db);
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            List<RuntimeException> failures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                            strategy.getOrCreate("user" + random.nextInt(USERS));
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (RuntimeException e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }, "get-or-create-" + t);
+                thread.start();
+                threads.add(thread);
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - startTime;
+            if (!failures.isEmpty()) {
+                throw failures.get(0);
+            }
+
+            long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+            System.out.printf("%-12s %10.0f ops/s, %d attempts, %d aborts, abort rate %.4f%n", name,
+                    operations / (elapsed / 1_000_000_000d), strategy.attempts(), strategy.aborts(),
+                    (double) strategy.aborts() / strategy.attempts());
+
+            assertTrue(strategy.attempts() >= operations);
+            try (Transaction tx = db.beginTx()) {
+                assertEquals(0L, tx.execute("MATCH (u:User) WITH u.name AS name, count(u) AS users "
+                        + "WHERE users > 1 RETURN count(name) AS duplicated").next().get("duplicated"));
+            }
+        }
+        finally {
+            managementService.shutdown();
+        }
+    }
+}
@@ -21,13 +21,16 @@ package org.neo4j.examples;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.ConstraintViolationException;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
@@ -167,6 +170,65 @@ public class GetOrCreateDocIT extends AbstractJavaDocTestBase {
         }.run();
     }
 
+    @Test
+    public void getOrCreateUsingMergeStrategy(GraphDatabaseService graphDb) {
+        runStrategy("merge", graphDb, () -> GetOrCreateStrategy.merge(graphDb, Label.label("User"), "name"));
+    }
+
+    @Test
+    public void getOrCreateUsingOptimisticStrategy(GraphDatabaseService graphDb) {
+        runStrategy("optimistic", graphDb, () -> GetOrCreateStrategy.optimistic(graphDb, Label.label("User"), "name"));
+    }
+
+    @Test
+    public void getOrCreateUsingLockStripedStrategy(GraphDatabaseService graphDb) {
+        runStrategy("striped", graphDb, () -> GetOrCreateStrategy.lockStriped(graphDb, Label.label("User"), "name", 16));
+    }
+
+    @Test
+    public void lockStripedStrategiesShareTheirStripes(GraphDatabaseService graphDb) {
+        GetOrCreateStrategy.lockStriped(graphDb, Label.label("Member"), "name", 16);
+        GetOrCreateStrategy.lockStriped(graphDb, Label.label("Member"), "name", 8);
+        GetOrCreateStrategy.lockStriped(graphDb, Label.label("Team"), "name", 4);
+
+        try (Transaction tx = graphDb.beginTx()) {
+            assertEquals(16L, tx.execute("MATCH (s:LockStripe {label: 'Member'}) RETURN count(s) AS stripes")
+                    .next().get("stripes"));
+            assertEquals(4L, tx.execute("MATCH (s:LockStripe {label: 'Team'}) RETURN count(s) AS stripes")
+                    .next().get("stripes"));
+        }
+    }
+
+    @Test
+    public void givesUpAfterTheMaximumNumberOfAttempts(GraphDatabaseService graphDb) {
+        GetOrCreateStrategy alwaysRacing = new GetOrCreateStrategy(graphDb, Label.label("User"), "name") {
+            @Override
+            Node attempt(Object value) {
+                throw new ConstraintViolationException("Another transaction created " + value + " first");
+            }
+        };
+
+        assertThrows(ConstraintViolationException.class, () -> alwaysRacing.getOrCreate("alice"));
+        assertEquals(GetOrCreateStrategy.MAX_ATTEMPTS, alwaysRacing.attempts());
+        assertEquals(GetOrCreateStrategy.MAX_ATTEMPTS, alwaysRacing.aborts());
+    }
+
+    private static void runStrategy(String base, GraphDatabaseService graphDb, Supplier<GetOrCreateStrategy> strategy) {
+        new ThreadRunner<>(new StrategyGetOrCreate(), base, graphDb) {
+            @Override
+            GetOrCreateStrategy createDependency() {
+                return strategy.get();
+            }
+        }.run();
+    }
+
+    static class StrategyGetOrCreate extends GetOrCreate<GetOrCreateStrategy> {
+        @Override
+        Node getOrCreateUser(String username, GraphDatabaseService graphDb, GetOrCreateStrategy strategy) {
+            return strategy.getOrCreate(username);
+        }
+    }
+
     private Node getOrCreateWithCypher(String username, GraphDatabaseService graphDb) {
         // tag::getOrCreateWithCypher[]
         Node result = null;
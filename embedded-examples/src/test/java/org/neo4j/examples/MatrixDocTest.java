@@ -18,12 +18,15 @@
  */
 package org.neo4j.examples;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.visualization.asciidoc.AsciidocHelper.createOutputSnippet;
 
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.neo4j.doc.tools.JavaDocsGenerator;
+import org.neo4j.graphdb.Path;
 
 public class MatrixDocTest {
     private static JavaDocsGenerator gen;
@@ -39,6 +42,11 @@ public class MatrixDocTest {
         newMatrix.setUp();
         String friends = newMatrix.printNeoFriends();
         String hackers = newMatrix.printMatrixHackers();
+        try (Stream<Path> friendPaths = newMatrix.neoFriends();
+                Stream<Path> hackerPaths = newMatrix.matrixHackers()) {
+            assertEquals(4, friendPaths.count());
+            assertEquals("The Architect", hackerPaths.findFirst().orElseThrow().endNode().getProperty("name"));
+        }
         newMatrix.shutdown();
         check(friends, hackers);
         gen.saveToFile("new-friends", createOutputSnippet(friends));
@@ -18,9 +18,11 @@
  */
 package org.neo4j.examples;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.Iterator;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +42,7 @@ import org.neo4j.graphdb.PathExpanders;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.Neo4j;
 import org.neo4j.harness.junit.extension.Neo4jExtension;
 
 @ExtendWith(Neo4jExtension.class)
@@ -89,6 +92,43 @@ class PathFindingDocTest {
         assertEquals(middleNode1, iterator.next());
     }
 
+    @Test
+    void shortestPathServiceExample(GraphDatabaseService graphDb, Neo4j neo4j) {
+        Node startNode = tx.createNode();
+        Node middleNode1 = tx.createNode();
+        Node middleNode2 = tx.createNode();
+        Node middleNode3 = tx.createNode();
+        Node endNode = tx.createNode();
+        createRelationshipsBetween(startNode, middleNode2, middleNode3, endNode);
+        tx.commit();
+
+        long[] sources = {startNode.getId(), endNode.getId(), middleNode1.getId()};
+        long[] targets = {endNode.getId(), startNode.getId(), endNode.getId()};
+        try (ShortestPathService service = ShortestPathService.builder(neo4j.databaseManagementService(), graphDb.databaseName())
+                .relationshipTypes(ExampleTypes.MY_TYPE)
+                .direction(Direction.OUTGOING)
+                .maxDepth(15)
+                .threads(2)
+                .build()) {
+            List<long[]> paths = service.findPaths(sources, targets);
+            assertArrayEquals(
+                    new long[] {startNode.getId(), middleNode2.getId(), middleNode3.getId(), endNode.getId()},
+                    paths.get(0));
+            assertEquals(0, paths.get(1).length);
+            assertEquals(0, paths.get(2).length);
+
+            // A shortcut commits a transaction, so cached paths are not used anymore
+            tx = graphDb.beginTx();
+            createRelationshipsBetween(tx.getNodeById(startNode.getId()), tx.getNodeById(middleNode1.getId()),
+                    tx.getNodeById(endNode.getId()));
+            tx.commit();
+
+            assertArrayEquals(new long[] {startNode.getId(), middleNode1.getId(), endNode.getId()},
+                    service.findPath(startNode.getId(), endNode.getId()));
+        }
+        tx = graphDb.beginTx();
+    }
+
     private void createRelationshipsBetween(final Node... nodes) {
         for (int i = 0; i < nodes.length - 1; i++) {
             nodes[i].createRelationshipTo(nodes[i + 1], ExampleTypes.MY_TYPE);
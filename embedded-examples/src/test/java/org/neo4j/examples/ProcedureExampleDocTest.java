@@ -24,6 +24,7 @@ import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAM
 import static org.neo4j.internal.helpers.collection.MapUtil.map;
 
 import java.nio.file.Path;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -70,6 +71,64 @@ class ProcedureExampleDocTest {
         }
     }
 
+    @Test
+    void denseNodeVariantsAndHistogramShouldWork() throws Throwable {
+        // Given
+        new JarBuilder().createJarFor(directory.resolve("myProcedures.jar").toFile(), ProcedureExample.class);
+        managementService =
+                new DatabaseManagementServiceBuilder(directory).setConfig(GraphDatabaseSettings.plugin_dir, directory.toAbsolutePath()).build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+
+        long densest;
+        try (Transaction transaction = db.beginTx()) {
+            Node node1 = transaction.createNode();
+            Node node2 = transaction.createNode();
+            Node node3 = transaction.createNode();
+            transaction.createNode();
+
+            node1.createRelationshipTo(node2, RelationshipType.withName("KNOWS"));
+            node1.createRelationshipTo(node3, RelationshipType.withName("KNOWS"));
+            node2.createRelationshipTo(node3, RelationshipType.withName("KNOWS"));
+            node1.createRelationshipTo(node1, RelationshipType.withName("KNOWS"));
+            densest = node1.getId();
+            transaction.commit();
+        }
+
+        try (Transaction transaction = db.beginTx()) {
+            // When
+            Result dense = transaction.execute("CALL org.neo4j.examples.findDenseNodesInParallel(0, 2, 1)");
+
+            // Then
+            assertEquals(map("degree", 3L, "nodeId", densest), dense.next());
+            assertFalse(dense.hasNext());
+
+            // When
+            Result allDense = transaction.execute("CALL org.neo4j.examples.findDenseNodesInParallel(1, 2) "
+                    + "YIELD nodeId, degree RETURN nodeId, degree ORDER BY degree DESC, nodeId");
+
+            // Then
+            assertEquals(map("degree", 3L, "nodeId", densest), allDense.next());
+            assertEquals(2L, allDense.next().get("degree"));
+            assertEquals(2L, allDense.next().get("degree"));
+            assertFalse(allDense.hasNext());
+
+            // When
+            Result batched = transaction.execute(
+                    "CALL org.neo4j.examples.findDenseNodesBatched(2, 1) YIELD nodeId RETURN collect(nodeId) AS nodeIds");
+
+            // Then
+            assertEquals(List.of(densest), batched.next().get("nodeIds"));
+
+            // When
+            Result histogram = transaction.execute("CALL org.neo4j.examples.degreeHistogram(2)");
+
+            // Then
+            assertEquals(map("minDegree", 0L, "maxDegree", 0L, "count", 1L), histogram.next());
+            assertEquals(map("minDegree", 2L, "maxDegree", 3L, "count", 3L), histogram.next());
+            assertFalse(histogram.hasNext());
+        }
+    }
+
     @AfterEach
     void tearDown() {
         if (managementService != null) {
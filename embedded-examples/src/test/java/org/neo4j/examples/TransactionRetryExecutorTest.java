@@ -0,0 +1,98 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.junit.extension.Neo4jExtension;
+import org.neo4j.kernel.DeadlockDetectedException;
+
+@ExtendWith(Neo4jExtension.class)
+class TransactionRetryExecutorTest {
+    @Test
+    void retriesDeadlocks(GraphDatabaseService db) {
+        TransactionRetryExecutor executor = TransactionRetryExecutor.builder()
+                .maxAttempts(3)
+                .initialBackoff(Duration.ofMillis(1))
+                .build();
+
+        Object result = executor.execute(db, tx -> {
+            if (executor.attempts() < 3) {
+                throw new DeadlockDetectedException("Deadlock for testing");
+            }
+            return tx.execute("RETURN 1 AS one").next().get("one");
+        });
+
+        assertEquals(1L, result);
+        assertEquals(3, executor.attempts());
+        assertEquals(2, executor.retries());
+        assertEquals(0, executor.failures());
+    }
+
+    @Test
+    void givesUpAfterTheMaximumNumberOfAttempts(GraphDatabaseService db) {
+        TransactionRetryExecutor executor = TransactionRetryExecutor.builder()
+                .maxAttempts(2)
+                .initialBackoff(Duration.ofMillis(1))
+                .build();
+
+        assertThrows(DeadlockDetectedException.class, () -> executor.execute(db, tx -> {
+            throw new DeadlockDetectedException("Deadlock for testing");
+        }));
+        assertEquals(2, executor.attempts());
+        assertEquals(1, executor.retries());
+        assertEquals(1, executor.failures());
+    }
+
+    @Test
+    void doesNotRetryOtherFailures(GraphDatabaseService db) {
+        TransactionRetryExecutor executor = TransactionRetryExecutor.builder().build();
+
+        assertThrows(IllegalStateException.class, () -> executor.execute(db, tx -> {
+            throw new IllegalStateException("Not transient");
+        }));
+        assertEquals(1, executor.attempts());
+        assertEquals(1, executor.failures());
+    }
+
+    @Test
+    void doesNotRetryCommittedWorkWhenTheListenerFails(GraphDatabaseService db) {
+        TransactionRetryExecutor executor = TransactionRetryExecutor.builder()
+                .listener((attempt, durationNanos, failure) -> {
+                    throw new DeadlockDetectedException("Listener failure for testing");
+                })
+                .build();
+
+        assertThrows(DeadlockDetectedException.class, () -> executor.execute(db, tx -> {
+            tx.execute("CREATE (:Committed)").close();
+            return null;
+        }));
+        assertEquals(1, executor.attempts());
+        assertEquals(0, executor.retries());
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(1L, tx.execute("MATCH (n:Committed) RETURN count(n) AS count").next().get("count"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.harness.junit.extension.Neo4jExtension;
+
+@ExtendWith(Neo4jExtension.class)
+class TraversalExampleTest {
+    @Test
+    void streamsTheSamePathsAsItPrints(GraphDatabaseService db) {
+        TraversalExample example = new TraversalExample(db);
+        try (Transaction tx = db.beginTx()) {
+            Node a = (Node) tx.execute("CREATE (a {name: 'a'})-[:KNOWS]->({name: 'b'})-[:KNOWS]->({name: 'c'})"
+                    + "<-[:KNOWS]-({name: 'd'})-[:KNOWS]->({name: 'e'}) RETURN a").columnAs("a").next();
+            example.init(tx);
+
+            assertEquals(example.traverseBaseTraverser(a), lines(example.friendPaths(a)));
+            assertEquals(example.depth3(a), lines(example.depth3Paths(a)));
+            assertEquals(example.depth4(a), lines(example.depth4Paths(a)));
+
+            assertEquals(List.of(0, 1, 2, 3, 4), lengths(example.friendPaths(a)));
+            assertEquals(List.of(0, 1, 2, 3), lengths(example.depth3Paths(a)));
+            assertEquals(List.of(2, 3, 4), lengths(example.depth4Paths(a)));
+        }
+    }
+
+    private static String lines(Stream<Path> paths) {
+        try (paths) {
+            return paths.map(path -> path + "\n").collect(joining());
+        }
+    }
+
+    private static List<Integer> lengths(Stream<Path> paths) {
+        try (paths) {
+            return paths.map(Path::length).toList();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PathExpanders;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Evaluators;
+import org.neo4j.harness.junit.extension.Neo4jExtension;
+
+@ExtendWith(Neo4jExtension.class)
+class TraversalTemplatesTest {
+    private static final RelationshipType KNOWS = RelationshipType.withName("KNOWS");
+
+    @Test
+    void runTemplateInManyTransactionsAndCountWhatItDid(GraphDatabaseService db) {
+        String start = createChain(db);
+
+        TraversalTemplates templates = new TraversalTemplates()
+                .register("friends", td -> td.breadthFirst()
+                        .relationships(KNOWS, Direction.OUTGOING)
+                        .evaluator(Evaluators.excludeStartPosition()));
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(3, count(templates.traverse("friends", tx, tx.getNodeByElementId(start))));
+        }
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(3, count(templates.traverse("friends", tx, tx.getNodeByElementId(start)).nodes()));
+        }
+
+        TraversalTemplates.Counters counters = templates.counters("friends");
+        assertEquals(2, counters.traversals());
+        assertEquals(8, counters.visited());
+        assertEquals(6, counters.returned());
+        assertEquals(2, counters.excluded());
+    }
+
+    @Test
+    void countNodesExpandedAndRelationshipsFilteredByTheExpander(GraphDatabaseService db) {
+        String start = createChain(db);
+
+        TraversalTemplates templates = new TraversalTemplates()
+                .register("friends", PathExpanders.forTypeAndDirection(KNOWS, Direction.OUTGOING),
+                        td -> td.breadthFirst().evaluator(Evaluators.excludeStartPosition()));
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(3, count(templates.traverse("friends", tx, tx.getNodeByElementId(start))));
+        }
+
+        // Every node of the chain is expanded from, and all but the first have an incoming relationship
+        TraversalTemplates.Counters counters = templates.counters("friends");
+        assertEquals(4, counters.expanded());
+        assertEquals(3, counters.filtered());
+    }
+
+    @Test
+    void onlyCountTraversalsRunByTheTemplates(GraphDatabaseService db) {
+        String start = createChain(db);
+
+        TraversalTemplates templates = new TraversalTemplates()
+                .register("friends", PathExpanders.forTypeAndDirection(KNOWS, Direction.OUTGOING),
+                        td -> td.breadthFirst().evaluator(Evaluators.excludeStartPosition()));
+
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(3, count(templates.bind("friends", tx).traverse(tx.getNodeByElementId(start))));
+        }
+
+        TraversalTemplates.Counters counters = templates.counters("friends");
+        assertEquals(0, counters.traversals());
+        assertEquals(0, counters.visited());
+        assertEquals(0, counters.expanded());
+        assertEquals(0, counters.excluded());
+    }
+
+    private static String createChain(GraphDatabaseService db) {
+        try (Transaction tx = db.beginTx()) {
+            Node first = tx.createNode();
+            Node previous = first;
+            for (int i = 0; i < 3; i++) {
+                Node next = tx.createNode();
+                previous.createRelationshipTo(next, KNOWS);
+                previous = next;
+            }
+            tx.commit();
+            return first.getElementId();
+        }
+    }
+}
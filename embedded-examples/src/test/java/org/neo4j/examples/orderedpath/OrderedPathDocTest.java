@@ -26,7 +26,9 @@ import static org.neo4j.internal.helpers.collection.Iterables.count;
 import static org.neo4j.visualization.asciidoc.AsciidocHelper.createOutputSnippet;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.file.Files;
+import java.util.List;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -35,7 +37,9 @@ import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.doc.tools.JavaDocsGenerator;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Paths;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.neo4j.io.fs.FileUtils;
 import org.neo4j.visualization.asciidoc.AsciidocHelper;
@@ -62,7 +66,7 @@ public class OrderedPathDocTest {
     }
 
     @Test
-    void testPath() {
+    void testPath() throws IOException {
         Node A = orderedPath.createTheGraph();
         String output;
         try (Transaction tx = db.beginTx()) {
@@ -70,6 +74,22 @@ public class OrderedPathDocTest {
             assertEquals(1, count(traversalDescription.traverse(tx.getNodeByElementId(A.getElementId()))));
             output = orderedPath.printPaths(tx, traversalDescription, A);
             assertTrue(output.contains("(A)--[REL1]-->(B)--[REL2]-->(C)--[REL3]-->(D)"));
+            StringWriter written = new StringWriter();
+            orderedPath.writePaths(tx, traversalDescription, A, written);
+            assertEquals(output, written.toString());
+
+            List<Path> matched = orderedPath.matchPaths(tx, A);
+            assertEquals(1, matched.size());
+            assertEquals("(A)--[REL1]-->(B)--[REL2]-->(C)--[REL3]-->(D)",
+                    Paths.pathToString(matched.get(0), new OrderedPath.PathPrinter("name")));
+            Path path = matched.get(0);
+            assertEquals(3, path.length());
+            assertEquals(A.getElementId(), path.startNode().getElementId());
+            assertEquals("D", path.endNode().getProperty("name"));
+            assertEquals("REL3", path.lastRelationship().getType().name());
+            assertEquals(7, count(path));
+            assertEquals(path.endNode(), path.reverseNodes().iterator().next());
+            assertEquals(path.lastRelationship(), path.reverseRelationships().iterator().next());
         }
         String graph = AsciidocHelper.createGraphVizDeletingReferenceNode(
                 "Ordered Path Graph", orderedPath.db, "java");
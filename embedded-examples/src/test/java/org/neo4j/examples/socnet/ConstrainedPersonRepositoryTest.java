@@ -0,0 +1,112 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.examples.socnet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+class ConstrainedPersonRepositoryTest {
+    private static final int nrOfPersons = 10;
+
+    private GraphDatabaseService graphDb;
+    private ConstrainedPersonRepository personRepository;
+    private DatabaseManagementService managementService;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setup() throws Exception {
+        managementService = new DatabaseManagementServiceBuilder(folder).build();
+        graphDb = managementService.database(DEFAULT_DATABASE_NAME);
+        personRepository = ConstrainedPersonRepository.create(graphDb, 4);
+        try (Transaction tx = graphDb.beginTx()) {
+            for (int i = 0; i < nrOfPersons; i++) {
+                personRepository.createPerson(tx, "person#" + i);
+            }
+            tx.commit();
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void rejectDuplicateNames() {
+        try (Transaction tx = graphDb.beginTx()) {
+            assertThatThrownBy(() -> personRepository.createPerson(tx, "person#3")).isInstanceOf(Exception.class);
+        }
+    }
+
+    @Test
+    void enumerateAllPersonsByLabelAndByBucket() {
+        try (Transaction tx = graphDb.beginTx()) {
+            try (Stream<Person> persons = personRepository.getAllPersons(tx)) {
+                assertThat(persons.map(Person::getName)).hasSize(nrOfPersons);
+            }
+
+            List<String> names = new ArrayList<>();
+            for (int bucket = 0; bucket < personRepository.numberOfBuckets(); bucket++) {
+                try (Stream<Person> persons = personRepository.getPersonsInBucket(tx, bucket)) {
+                    persons.map(Person::getName).forEach(names::add);
+                }
+            }
+            assertThat(names).hasSize(nrOfPersons).doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void pageThroughPersonsInNameOrder() {
+        List<String> names = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            String after = "";
+            List<String> page;
+            do {
+                try (Stream<Person> persons = personRepository.getPersons(tx, after, 3)) {
+                    page = persons.map(Person::getName).collect(Collectors.toList());
+                }
+                assertThat(page.size()).isLessThanOrEqualTo(3);
+                names.addAll(page);
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1);
+                }
+            }
+            while (!page.isEmpty());
+        }
+
+        assertThat(names).hasSize(nrOfPersons).isSorted();
+    }
+}
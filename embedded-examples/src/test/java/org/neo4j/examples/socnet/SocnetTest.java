@@ -20,6 +20,7 @@ package org.neo4j.examples.socnet;
 
 import static com.google.common.collect.Iterables.addAll;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
 import static org.neo4j.internal.helpers.collection.Iterators.addToCollection;
@@ -29,6 +30,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +39,8 @@ import org.junit.jupiter.api.io.TempDir;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 
 class SocnetTest {
@@ -105,6 +109,73 @@ class SocnetTest {
         }
     }
 
+    @Test
+    void readTheLatestStatusesFromTheTimeline() {
+        try (Transaction tx = graphDb.beginTx()) {
+            Person person = getRandomPerson(tx);
+            for (int i = 1; i <= 5; i++) {
+                person.addStatus(tx, "Test" + i);
+            }
+
+            ArrayList<StatusUpdate> latest = fromIterableToArrayList(
+                    person.getStatus(tx, Long.MIN_VALUE, Long.MAX_VALUE, 2).iterator());
+            assertThat(latest).extracting(StatusUpdate::getStatusText).containsExactly("Test5", "Test4");
+
+            long newest = latest.get(0).getTimestamp();
+            assertThat(person.getStatus(tx, newest + 1, Long.MAX_VALUE, 10)).isEmpty();
+            assertThat(person.getStatus(tx, Long.MIN_VALUE, newest + 1, 10)).hasSize(5);
+        }
+    }
+
+    @Test
+    void deletePersonInBatches() throws Exception {
+        try (Transaction tx = graphDb.beginTx()) {
+            Person person = personRepository.createPerson(tx, "heavy user");
+            for (Person other : personRepository.getAllPersons(tx)) {
+                person.addFriend(tx, other);
+            }
+            for (int i = 0; i < 7; i++) {
+                person.addStatus(tx, "Status #" + i);
+            }
+            tx.commit();
+        }
+
+        try (Transaction tx = graphDb.beginTx()) {
+            personRepository.deletePerson(personRepository.getPersonByName(tx, "heavy user"), 3);
+        }
+
+        try (Transaction tx = graphDb.beginTx()) {
+            assertThatThrownBy(() -> personRepository.getPersonByName(tx, "heavy user"))
+                    .isInstanceOf(IllegalArgumentException.class);
+            for (Person person : personRepository.getAllPersons(tx)) {
+                for (Person friend : person.getFriends(tx)) {
+                    assertThat(friend.getName()).isNotEqualTo("heavy user");
+                }
+            }
+        }
+    }
+
+    @Test
+    void deletePersonInBatchesLeavesNodesThatAreNotThePersonAlone() {
+        // A node with the id of a deleted person, that isn't a person of the repository
+        String impostor;
+        Person person;
+        try (Transaction tx = graphDb.beginTx()) {
+            Node node = tx.createNode(Label.label("Person"));
+            node.setProperty("name", "impostor");
+            node.createRelationshipTo(tx.createNode(), RelTypes.FRIEND);
+            impostor = node.getElementId();
+            person = new Person(graphDb, node);
+            tx.commit();
+        }
+
+        personRepository.deletePerson(person, 3);
+
+        try (Transaction tx = graphDb.beginTx()) {
+            assertThat(tx.getNodeByElementId(impostor).getDegree()).isEqualTo(1);
+        }
+    }
+
     @Test
     void removingOneFriendIsHandledCleanly() {
         Person person1;
@@ -130,6 +201,21 @@ class SocnetTest {
         }
     }
 
+    @Test
+    void addingAnExistingFriendFromEitherSideDoesNothing() {
+        try (Transaction tx = graphDb.beginTx()) {
+            Person person1 = personRepository.getPersonByName(tx, "person#1");
+            Person person2 = personRepository.getPersonByName(tx, "person#2");
+            person1.addFriend(tx, person2);
+            long noOfFriends = person1.getNrOfFriends(tx);
+
+            person1.addFriend(tx, person2);
+            person2.addFriend(tx, person1);
+
+            assertThat(person1.getNrOfFriends(tx)).isEqualTo(noOfFriends);
+        }
+    }
+
     @Test
     void retrieveStatusUpdatesInDateOrder() {
         Person person;
@@ -154,6 +240,54 @@ class SocnetTest {
         }
     }
 
+    @Test
+    void pageThroughFriendStatusUpdatesNewestFirst() {
+        Person person;
+        List<Long> allStatuses = new ArrayList<>();
+        try (Transaction tx = graphDb.beginTx()) {
+            person = getRandomPersonWithFriends(tx);
+            for (int i = 0; i < 20; i++) {
+                Person friend = getRandomFriendOf(tx, person);
+                friend.addStatus(tx, "Update #" + i);
+            }
+            // Updates are often posted in the same millisecond, so make sure many of them share a page boundary
+            ArrayList<StatusUpdate> updates = fromIterableToArrayList(person.friendStatuses(tx));
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < updates.size(); i++) {
+                updates.get(i).getUnderlyingNode().setProperty(StatusUpdate.DATE, now - i / 7);
+                allStatuses.add(updates.get(i).getUnderlyingNode().getId());
+            }
+            tx.commit();
+        }
+
+        List<Long> paged = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+        StatusCursor cursor = StatusCursor.FIRST;
+        while (true) {
+            try (Transaction tx = graphDb.beginTx()) {
+                FriendsStatusUpdateIterator page = person.friendStatuses(tx, cursor, 3);
+                ArrayList<StatusUpdate> updates = fromIterableToArrayList(page);
+                assertThat(updates).hasSizeLessThanOrEqualTo(3);
+                if (updates.isEmpty()) {
+                    break;
+                }
+                for (StatusUpdate update : updates) {
+                    paged.add(update.getUnderlyingNode().getId());
+                    timestamps.add(update.getTimestamp());
+                }
+                cursor = page.cursor();
+            }
+        }
+
+        assertThat(paged).hasSize(allStatuses.size()).containsExactlyInAnyOrderElementsOf(allStatuses);
+        for (int i = 1; i < paged.size(); i++) {
+            assertThat(timestamps.get(i)).isLessThanOrEqualTo(timestamps.get(i - 1));
+            if (timestamps.get(i).equals(timestamps.get(i - 1))) {
+                assertThat(paged.get(i)).isLessThan(paged.get(i - 1));
+            }
+        }
+    }
+
     @Test
     void friendsOfFriendsWorks() {
         try (Transaction tx = graphDb.beginTx()) {
@@ -278,6 +412,49 @@ class SocnetTest {
         }
     }
 
+    @Test
+    void cachedFriendRecommendationsFollowFriendshipChanges() throws Exception {
+        deleteSocialGraph();
+        Person a;
+        Person c;
+        Person d;
+        try (Transaction tx = graphDb.beginTx()) {
+            a = personRepository.createPerson(tx, "a");
+            Person b = personRepository.createPerson(tx, "b");
+            c = personRepository.createPerson(tx, "c");
+            d = personRepository.createPerson(tx, "d");
+
+            // A is friends with B, who is friends with C
+            a.addFriend(tx, b);
+            b.addFriend(tx, c);
+            tx.commit();
+        }
+
+        try (FriendRecommender recommender = FriendRecommender.cached(managementService, DEFAULT_DATABASE_NAME, 10)) {
+            try (Transaction tx = graphDb.beginTx()) {
+                assertThat(recommender.recommend(tx, a, 5)).containsExactly(c);
+            }
+
+            // D befriends C, which changes the recommendations of C's friend B but not those of A
+            try (Transaction tx = graphDb.beginTx()) {
+                personRepository.getPersonByName(tx, "d").addFriend(tx, personRepository.getPersonByName(tx, "c"));
+                tx.commit();
+            }
+            try (Transaction tx = graphDb.beginTx()) {
+                assertThat(recommender.recommend(tx, a, 5)).containsExactly(c);
+            }
+
+            // A befriends C, who then should no longer be recommended to A
+            try (Transaction tx = graphDb.beginTx()) {
+                personRepository.getPersonByName(tx, "a").addFriend(tx, personRepository.getPersonByName(tx, "c"));
+                tx.commit();
+            }
+            try (Transaction tx = graphDb.beginTx()) {
+                assertThat(recommender.recommend(tx, a, 5)).containsExactly(d);
+            }
+        }
+    }
+
     private <T> ArrayList<T> fromIterableToArrayList(Iterator<T> iterable) {
         ArrayList<T> collection = new ArrayList<>();
         addToCollection(iterable, collection);
@@ -22,6 +22,7 @@
  */
 package examples;
 
+import java.util.concurrent.ThreadLocalRandom;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -41,7 +42,8 @@ class DeadlockDocTest {
         // tag::retry[]
         Throwable txEx = null;
         int RETRIES = 5;
-        int BACKOFF = 3000;
+        long INITIAL_BACKOFF = 10;
+        long MAX_BACKOFF = 3000;
         for (int i = 0; i < RETRIES; i++) {
             try (Transaction tx = databaseService.beginTx()) {
                 Object result = doStuff(tx);
@@ -57,12 +59,16 @@ class DeadlockDocTest {
                 }
             }
 
-            // Wait so that we don't immediately get into the same deadlock
+            // Wait so that we don't immediately get into the same deadlock: a random time,
+            // up to a limit that doubles with every attempt, so that the transactions
+            // that deadlocked with each other don't retry in lock step
             if (i < RETRIES - 1) {
+                long backoff = Math.min(MAX_BACKOFF, INITIAL_BACKOFF << i);
                 try {
-                    Thread.sleep(BACKOFF);
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
                 }
                 catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                     throw new TransactionFailureException("Interrupted", e);
                 }
             }
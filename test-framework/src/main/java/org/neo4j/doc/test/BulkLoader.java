@@ -0,0 +1,144 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Creates nodes and relationships in bounded batches, committing a transaction every {@code batchSize} writes.
+ * <p>
+ * Entities are referred to by id, since they outlive the transaction that created them. Call {@link #commit()} once
+ * everything has been written, closing the loader without doing so rolls back the current batch. Batches that were
+ * committed before stay committed, so a load that has to be all or nothing needs a batch size of at least the number
+ * of writes.
+ */
+public class BulkLoader implements AutoCloseable {
+    private final GraphDatabaseService db;
+    private final int batchSize;
+    private final Map<String,Label> labels = new HashMap<>();
+    private final Map<String,RelationshipType> types = new HashMap<>();
+    private Transaction tx;
+    private int operations;
+
+    public BulkLoader(GraphDatabaseService db, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+        this.db = db;
+        this.batchSize = batchSize;
+        this.tx = db.beginTx();
+    }
+
+    public Label label(String name) {
+        return labels.computeIfAbsent(name, Label::label);
+    }
+
+    public RelationshipType relationshipType(String name) {
+        return types.computeIfAbsent(name, RelationshipType::withName);
+    }
+
+    public long createNode(Label... labels) {
+        long node = transaction().createNode(labels).getId();
+        operation();
+        return node;
+    }
+
+    public long createRelationship(long start, RelationshipType type, long end) {
+        Transaction transaction = transaction();
+        long relationship = transaction.getNodeById(start)
+                .createRelationshipTo(transaction.getNodeById(end), type).getId();
+        operation();
+        return relationship;
+    }
+
+    public void setNodeProperty(long node, String key, Object value) {
+        transaction().getNodeById(node).setProperty(key, value);
+        operation();
+    }
+
+    public void setRelationshipProperty(long relationship, String key, Object value) {
+        transaction().getRelationshipById(relationship).setProperty(key, value);
+        operation();
+    }
+
+    /**
+     * @return a node entity for the given id, bound to the current batch transaction.
+     */
+    public Node node(long id) {
+        return transaction().getNodeById(id);
+    }
+
+    /**
+     * Commit the last batch. Nothing can be written through this loader afterwards.
+     */
+    public void commit() {
+        Transaction last = transaction();
+        tx = null;
+        try {
+            last.commit();
+        }
+        finally {
+            last.close();
+        }
+    }
+
+    /**
+     * Roll back the current batch, unless {@link #commit()} has been called.
+     */
+    @Override
+    public void close() {
+        if (tx != null) {
+            try {
+                tx.rollback();
+            }
+            finally {
+                tx.close();
+                tx = null;
+            }
+        }
+    }
+
+    private Transaction transaction() {
+        if (tx == null) {
+            throw new IllegalStateException("This loader has already been committed or closed");
+        }
+        return tx;
+    }
+
+    private void operation() {
+        if (++operations >= batchSize) {
+            Transaction batch = tx;
+            tx = null;
+            try {
+                batch.commit();
+            }
+            finally {
+                batch.close();
+            }
+            tx = db.beginTx();
+            operations = 0;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * A {@link GraphDescription} compiled into the writes that create it, so that creating it again only has to replay
+ * those writes.
+ * <p>
+ * The description is parsed, label and relationship type objects are created once per name, and property values are
+ * converted once, when the plan is compiled. The plan doesn't hold token ids: it writes through the public API, so the
+ * database still looks up the labels, relationship types and property keys by name on every replay.
+ */
+public final class CreationPlan {
+    private final String[] nodeNames;
+    private final Label[][] nodeLabels;
+    private final String[][] nodeKeys;
+    private final Object[][] nodeValues;
+    private final int[] relationshipStarts;
+    private final RelationshipType[] relationshipTypes;
+    private final int[] relationshipEnds;
+    private final String[][] relationshipKeys;
+    private final Object[][] relationshipValues;
+
+    private CreationPlan(Compiler compiler) {
+        this.nodeNames = compiler.nodeNames.toArray(new String[0]);
+        this.nodeLabels = compiler.nodeLabels.toArray(new Label[0][]);
+        this.nodeKeys = compiler.nodeKeys.toArray(new String[0][]);
+        this.nodeValues = compiler.nodeValues.toArray(new Object[0][]);
+        this.relationshipStarts = toArray(compiler.relationshipStarts);
+        this.relationshipTypes = compiler.relationshipTypes.toArray(new RelationshipType[0]);
+        this.relationshipEnds = toArray(compiler.relationshipEnds);
+        this.relationshipKeys = compiler.relationshipKeys.toArray(new String[0][]);
+        this.relationshipValues = compiler.relationshipValues.toArray(new Object[0][]);
+    }
+
+    static Compiler compiler() {
+        return new Compiler();
+    }
+
+    /**
+     * Create the planned graph in transactions of at most {@code batchSize} writes each. If creating it fails, the
+     * batch being written is rolled back.
+     */
+    public Map<String,Node> execute(GraphDatabaseService db, int batchSize) {
+        long[] nodes = new long[nodeNames.length];
+        Map<String,Node> result = new HashMap<>(nodeNames.length * 2);
+        try (BulkLoader loader = new BulkLoader(db, batchSize)) {
+            for (int n = 0; n < nodes.length; n++) {
+                nodes[n] = loader.createNode(nodeLabels[n]);
+                String[] keys = nodeKeys[n];
+                Object[] values = nodeValues[n];
+                for (int i = 0; i < keys.length; i++) {
+                    loader.setNodeProperty(nodes[n], keys[i], values[i]);
+                }
+            }
+            for (int r = 0; r < relationshipStarts.length; r++) {
+                long relationship = loader.createRelationship(nodes[relationshipStarts[r]], relationshipTypes[r],
+                        nodes[relationshipEnds[r]]);
+                String[] keys = relationshipKeys[r];
+                Object[] values = relationshipValues[r];
+                for (int i = 0; i < keys.length; i++) {
+                    loader.setRelationshipProperty(relationship, keys[i], values[i]);
+                }
+            }
+            for (int n = 0; n < nodes.length; n++) {
+                result.put(nodeNames[n], loader.node(nodes[n]));
+            }
+            loader.commit();
+        }
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    static class Compiler {
+        private final Map<String,Label> labels = new HashMap<>();
+        private final Map<String,RelationshipType> types = new HashMap<>();
+        private final Map<String,Integer> nodes = new HashMap<>();
+        private final List<String> nodeNames = new ArrayList<>();
+        private final List<Label[]> nodeLabels = new ArrayList<>();
+        private final List<String[]> nodeKeys = new ArrayList<>();
+        private final List<Object[]> nodeValues = new ArrayList<>();
+        private final List<Integer> relationshipStarts = new ArrayList<>();
+        private final List<RelationshipType> relationshipTypes = new ArrayList<>();
+        private final List<Integer> relationshipEnds = new ArrayList<>();
+        private final List<String[]> relationshipKeys = new ArrayList<>();
+        private final List<Object[]> relationshipValues = new ArrayList<>();
+
+        private Compiler() {
+        }
+
+        void node(String name, String[] labelNames, Map<String,Object> properties) {
+            Label[] nodeLabelList = new Label[labelNames.length];
+            for (int i = 0; i < labelNames.length; i++) {
+                nodeLabelList[i] = labels.computeIfAbsent(labelNames[i], Label::label);
+            }
+            nodes.put(name, nodeNames.size());
+            nodeNames.add(name);
+            nodeLabels.add(nodeLabelList);
+            addProperties(properties, nodeKeys, nodeValues);
+        }
+
+        void relationship(String start, String type, String end, Map<String,Object> properties) {
+            relationshipStarts.add(nodes.get(start));
+            relationshipTypes.add(types.computeIfAbsent(type, RelationshipType::withName));
+            relationshipEnds.add(nodes.get(end));
+            addProperties(properties, relationshipKeys, relationshipValues);
+        }
+
+        CreationPlan build() {
+            return new CreationPlan(this);
+        }
+
+        private static void addProperties(Map<String,Object> properties, List<String[]> keyList,
+                List<Object[]> valueList) {
+            keyList.add(properties.keySet().toArray(new String[0]));
+            valueList.add(properties.values().toArray());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.doc.test.GraphDatabaseServiceCleaner.cleanDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+/**
+ * A fixed number of started, impermanent, databases that tests running in parallel lease one at a time.
+ * <p>
+ * Databases are emptied when they are released, by dropping and recreating them where the edition supports it, so a
+ * test never sees what the previous lessee left behind.
+ */
+public final class DatabasePool implements AutoCloseable {
+    private final BlockingQueue<GraphDatabaseService> available;
+    private final Map<GraphDatabaseService,DatabaseManagementService> managementServices =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public DatabasePool(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive, was " + size);
+        }
+        available = new LinkedBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                DatabaseManagementService managementService = new TestDatabaseManagementServiceBuilder()
+                        .impermanent()
+                        .build();
+                GraphDatabaseService db;
+                try {
+                    db = managementService.database(DEFAULT_DATABASE_NAME);
+                }
+                catch (Throwable e) {
+                    managementService.shutdown();
+                    throw e;
+                }
+                managementServices.put(db, managementService);
+                available.add(db);
+            }
+        }
+        catch (Throwable e) {
+            // Don't leave the databases started so far running
+            try {
+                close();
+            }
+            catch (Throwable closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for a database to become available and take it out of the pool.
+     */
+    public GraphDatabaseService lease() throws InterruptedException {
+        return available.take();
+    }
+
+    /**
+     * Empty the database and put it back into the pool.
+     */
+    public void release(GraphDatabaseService db) {
+        DatabaseManagementService managementService = managementServices.remove(db);
+        if (managementService == null) {
+            throw new IllegalArgumentException("Database " + db.databaseName() + " was not leased from this pool");
+        }
+        GraphDatabaseService clean;
+        try {
+            clean = cleanDatabase(managementService, db.databaseName());
+        }
+        catch (RuntimeException e) {
+            // Still shut it down with the pool, but don't hand it out again
+            managementServices.put(db, managementService);
+            throw e;
+        }
+        managementServices.put(clean, managementService);
+        available.add(clean);
+    }
+
+    public DatabaseManagementService managementService(GraphDatabaseService db) {
+        return managementServices.get(db);
+    }
+
+    /**
+     * Shut down all databases of the pool, including the ones that are leased.
+     */
+    @Override
+    public void close() {
+        List<DatabaseManagementService> toShutDown;
+        synchronized (managementServices) {
+            toShutDown = new ArrayList<>(managementServices.values());
+            managementServices.clear();
+        }
+        available.clear();
+        RuntimeException failure = null;
+        for (DatabaseManagementService managementService : toShutDown) {
+            try {
+                managementService.shutdown();
+            }
+            catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
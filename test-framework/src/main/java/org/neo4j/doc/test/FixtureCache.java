@@ -0,0 +1,90 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.neo4j.doc.test.GraphDatabaseServiceCleaner.DEFAULT_BATCH_SIZE;
+import static org.neo4j.doc.test.GraphDatabaseServiceCleaner.cleanDatabaseContent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.storageengine.api.TransactionIdStore;
+
+/**
+ * Keeps track of the fixture last created in each database, so that it only has to be rebuilt when a test has
+ * changed the database since.
+ * <p>
+ * After creating a fixture the id of the last committed transaction is recorded. If it is unchanged when the same
+ * fixture is requested again, the database still holds exactly that fixture, and restoring it costs nothing. Otherwise
+ * the database is cleaned and the fixture created anew. Fixtures are identified by their {@link GraphDefinition}
+ * instance, and {@link GraphDescription#create(GraphDescription.Graph)} returns the same one for the same annotation.
+ */
+public final class FixtureCache {
+    private static final FixtureCache SHARED = new FixtureCache();
+
+    private final Map<GraphDatabaseService,Fixture> fixtures = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public static FixtureCache shared() {
+        return SHARED;
+    }
+
+    public static TestData.Producer<Map<String,Node>> restoreGraphFor() {
+        return (graph, title, documentation, db) -> SHARED.restore(db, graph);
+    }
+
+    public Map<String,Node> restore(GraphDatabaseService db, GraphDefinition graph) {
+        Fixture fixture = fixtures.get(db);
+        if (fixture != null && fixture.graph == graph && fixture.lastTransactionId == lastCommittedTransactionId(db)) {
+            return fixture.nodes;
+        }
+        cleanDatabaseContent(db, DEFAULT_BATCH_SIZE);
+        Map<String,Node> nodes = Collections.unmodifiableMap(graph.create(db));
+        fixtures.put(db, new Fixture(graph, nodes, lastCommittedTransactionId(db)));
+        return nodes;
+    }
+
+    /**
+     * Forget the fixture of the given database, e.g. after it has been changed in ways that don't commit a
+     * transaction. The next {@link #restore(GraphDatabaseService, GraphDefinition)} will rebuild it.
+     */
+    public void invalidate(GraphDatabaseService db) {
+        fixtures.remove(db);
+    }
+
+    private static long lastCommittedTransactionId(GraphDatabaseService db) {
+        return ((GraphDatabaseAPI) db).getDependencyResolver()
+                .resolveDependency(TransactionIdStore.class)
+                .getLastCommittedTransactionId();
+    }
+
+    private static class Fixture {
+        private final GraphDefinition graph;
+        private final Map<String,Node> nodes;
+        private final long lastTransactionId;
+
+        Fixture(GraphDefinition graph, Map<String,Node> nodes, long lastTransactionId) {
+            this.graph = graph;
+            this.nodes = nodes;
+            this.lastTransactionId = lastTransactionId;
+        }
+    }
+}
@@ -18,6 +18,8 @@
  */
 package org.neo4j.doc.test;
 
+import org.neo4j.dbms.api.DatabaseManagementException;
+import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -26,6 +28,8 @@ import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 
 public final class GraphDatabaseServiceCleaner {
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
     private GraphDatabaseServiceCleaner() {
         throw new UnsupportedOperationException();
     }
@@ -35,6 +39,36 @@ public final class GraphDatabaseServiceCleaner {
         cleanupAllRelationshipsAndNodes(db);
     }
 
+    /**
+     * Like {@link #cleanDatabaseContent(GraphDatabaseService)}, but deletes nodes and relationships in transactions of
+     * at most {@code batchSize} nodes each, so that the size of the graph doesn't bound the transaction state.
+     */
+    public static void cleanDatabaseContent(GraphDatabaseService db, int batchSize) {
+        cleanupSchema(db);
+        cleanupAllRelationshipsAndNodes(db, batchSize);
+    }
+
+    /**
+     * Drop and recreate the database when the edition supports it, which takes the same time regardless of what the
+     * database contains. Otherwise the content is deleted in batches.
+     *
+     * @return the database to use from now on, since a recreated database has a new {@link GraphDatabaseService}.
+     */
+    public static GraphDatabaseService cleanDatabase(DatabaseManagementService managementService, String databaseName) {
+        try {
+            managementService.dropDatabase(databaseName);
+        }
+        catch (UnsupportedOperationException | DatabaseManagementException e) {
+            // This edition can't drop databases, or not this one, so the database is still there to be emptied
+            GraphDatabaseService db = managementService.database(databaseName);
+            cleanDatabaseContent(db, DEFAULT_BATCH_SIZE);
+            return db;
+        }
+        // The database is gone now, so if it can't be created again there is nothing to fall back to
+        managementService.createDatabase(databaseName);
+        return managementService.database(databaseName);
+    }
+
     public static void cleanupSchema(GraphDatabaseService db) {
         try (Transaction tx = db.beginTx()) {
             var schema = tx.schema();
@@ -61,4 +95,12 @@ public final class GraphDatabaseServiceCleaner {
             tx.commit();
         }
     }
+
+    public static void cleanupAllRelationshipsAndNodes(GraphDatabaseService db, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+        db.executeTransactionally(
+                "MATCH (n) CALL { WITH n DETACH DELETE n } IN TRANSACTIONS OF " + batchSize + " ROWS");
+    }
 }
@@ -22,7 +22,6 @@ import static java.util.Arrays.asList;
 import static java.util.Arrays.copyOfRange;
 import static org.neo4j.doc.test.GraphDescription.PropType.ERROR;
 import static org.neo4j.doc.test.GraphDescription.PropType.STRING;
-import static org.neo4j.graphdb.Label.label;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
@@ -31,16 +30,18 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.neo4j.graphdb.Entity;
+import java.util.concurrent.ConcurrentHashMap;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.RelationshipType;
-import org.neo4j.graphdb.Transaction;
 
 public class GraphDescription implements GraphDefinition {
     @Inherited
@@ -155,9 +156,129 @@ public class GraphDescription implements GraphDefinition {
             }
         },
 
+        LONG_ARRAY {
+            @Override
+            long[] convert(String value) {
+                if (isBase64(value)) {
+                    ByteBuffer buffer = decode(value, Long.BYTES);
+                    long[] result = new long[buffer.remaining() / Long.BYTES];
+                    buffer.asLongBuffer().get(result);
+                    return result;
+                }
+                String[] items = items(value);
+                long[] result = new long[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    result[i] = Long.parseLong(items[i]);
+                }
+                return result;
+            }
+        },
+        DOUBLE_ARRAY {
+            @Override
+            double[] convert(String value) {
+                if (isBase64(value)) {
+                    ByteBuffer buffer = decode(value, Double.BYTES);
+                    double[] result = new double[buffer.remaining() / Double.BYTES];
+                    buffer.asDoubleBuffer().get(result);
+                    return result;
+                }
+                String[] items = items(value);
+                double[] result = new double[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    result[i] = Double.parseDouble(items[i]);
+                }
+                return result;
+            }
+        },
+        FLOAT_ARRAY {
+            @Override
+            float[] convert(String value) {
+                if (isBase64(value)) {
+                    ByteBuffer buffer = decode(value, Float.BYTES);
+                    float[] result = new float[buffer.remaining() / Float.BYTES];
+                    buffer.asFloatBuffer().get(result);
+                    return result;
+                }
+                String[] items = items(value);
+                float[] result = new float[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    result[i] = Float.parseFloat(items[i]);
+                }
+                return result;
+            }
+        },
+        BYTE_ARRAY {
+            @Override
+            byte[] convert(String value) {
+                if (isBase64(value)) {
+                    return Base64.getDecoder().decode(value.substring(BASE64_PREFIX.length()));
+                }
+                String[] items = items(value);
+                byte[] result = new byte[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    result[i] = Byte.parseByte(items[i]);
+                }
+                return result;
+            }
+        },
+
         ERROR {
         };
 
+        /**
+         * Values of the primitive array types are either comma separated, or this prefix followed by the base64
+         * encoding of the big-endian binary representation of the array, which is more compact for large arrays.
+         */
+        public static final String BASE64_PREFIX = "base64:";
+
+        /**
+         * Encode a {@code long[]}, {@code double[]}, {@code float[]} or {@code byte[]} as a value of the
+         * corresponding primitive array type.
+         */
+        public static String base64(Object array) {
+            ByteBuffer buffer;
+            if (array instanceof long[]) {
+                long[] values = (long[]) array;
+                buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+                buffer.asLongBuffer().put(values);
+            }
+            else if (array instanceof double[]) {
+                double[] values = (double[]) array;
+                buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+                buffer.asDoubleBuffer().put(values);
+            }
+            else if (array instanceof float[]) {
+                float[] values = (float[]) array;
+                buffer = ByteBuffer.allocate(values.length * Float.BYTES);
+                buffer.asFloatBuffer().put(values);
+            }
+            else if (array instanceof byte[]) {
+                buffer = ByteBuffer.wrap((byte[]) array);
+            }
+            else {
+                throw new IllegalArgumentException("Not a supported primitive array: " + array);
+            }
+            return BASE64_PREFIX + Base64.getEncoder().encodeToString(buffer.array());
+        }
+
+        private static boolean isBase64(String value) {
+            return value.startsWith(BASE64_PREFIX);
+        }
+
+        private static ByteBuffer decode(String value, int elementSize) {
+            byte[] bytes = Base64.getDecoder().decode(value.substring(BASE64_PREFIX.length()));
+            if (bytes.length % elementSize != 0) {
+                throw new IllegalArgumentException("Decoded " + bytes.length + " bytes, which is not a whole number of "
+                        + elementSize + " byte elements: " + value);
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+
+        private static String[] items(String value) {
+            String trimmed = value.trim();
+            return trimmed.isEmpty() ? new String[0] : trimmed.split(" *, *");
+        }
+
         Class<?> componentClass() {
             throw new UnsupportedOperationException("Not implemented for property type" + name());
         }
@@ -177,40 +298,61 @@ public class GraphDescription implements GraphDefinition {
 
     @Override
     public Map<String,Node> create(GraphDatabaseService graphdb) {
-        Map<String,Node> result = new HashMap<>();
-        try (Transaction tx = graphdb.beginTx()) {
+        return plan().execute(graphdb, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create the described graph in transactions of at most {@code batchSize} writes each.
+     * Use this rather than {@link #create(GraphDatabaseService)} for descriptions too large for a single transaction.
+     */
+    public Map<String,Node> create(GraphDatabaseService graphdb, int batchSize) {
+        return plan().execute(graphdb, batchSize);
+    }
+
+    /**
+     * @return the writes that create this graph, compiled on first use.
+     */
+    public CreationPlan plan() {
+        CreationPlan result = plan;
+        if (result == null) {
+            CreationPlan.Compiler compiler = CreationPlan.compiler();
             for (NODE def : nodes) {
-                Node node = init(tx.createNode(), def.setNameProperty() ? def.name() : null, def.properties());
-                for (LABEL label : def.labels()) {
-                    node.addLabel(label(label.value()));
+                LABEL[] labelDefs = def.labels();
+                String[] labels = new String[labelDefs.length];
+                for (int i = 0; i < labelDefs.length; i++) {
+                    labels[i] = labelDefs[i].value();
                 }
-                result.put(def.name(), node);
+                compiler.node(def.name(), labels, properties(def.properties(), def.setNameProperty() ? def.name() : null));
             }
             for (REL def : rels) {
-                init(result.get(def.start()).createRelationshipTo(result.get(def.end()),
-                                RelationshipType.withName(def.type())), def.setNameProperty() ? def.name() : null,
-                        def.properties());
+                compiler.relationship(def.start(), def.type(), def.end(),
+                        properties(def.properties(), def.setNameProperty() ? def.name() : null));
             }
-            tx.commit();
+            plan = result = compiler.build();
         }
         return result;
     }
 
-    private static <T extends Entity> T init(T entity, String name, PROP[] properties) {
+    private static Map<String,Object> properties(PROP[] properties, String name) {
+        Map<String,Object> result = new LinkedHashMap<>();
         for (PROP prop : properties) {
-            PropType tpe = prop.type();
-            if (tpe == PropType.ARRAY) {
-                entity.setProperty(prop.key(), tpe.convert(prop.componentType(), prop.value()));
-            }
-            else {
-                entity.setProperty(prop.key(), prop.type().convert(prop.value()));
-            }
+            result.put(prop.key(), value(prop));
         }
         if (name != null) {
-            entity.setProperty("name", name);
+            result.put("name", name);
         }
+        return result;
+    }
 
-        return entity;
+    private static Object value(PROP prop) {
+        if (prop instanceof DefaultProp) {
+            return ((DefaultProp) prop).value;
+        }
+        PropType tpe = prop.type();
+        if (tpe == PropType.ARRAY) {
+            return tpe.convert(prop.componentType(), prop.value());
+        }
+        return tpe.convert(prop.value());
     }
 
     private static final PROP[] NO_PROPS = {};
@@ -222,9 +364,16 @@ public class GraphDescription implements GraphDefinition {
             // don't bother with creating a transaction
             return new HashMap<>();
         }
+
+        @Override
+        public Map<String,Node> create(GraphDatabaseService graphdb, int batchSize) {
+            return new HashMap<>();
+        }
     };
+    private static final Map<Graph,GraphDescription> PARSED = new ConcurrentHashMap<>();
     private final NODE[] nodes;
     private final REL[] rels;
+    private volatile CreationPlan plan;
 
     public static GraphDescription create(String... definition) {
         Map<String,NODE> nodes = new HashMap<>();
@@ -233,10 +382,17 @@ public class GraphDescription implements GraphDefinition {
         return new GraphDescription(nodes.values().toArray(NO_NODES), relationships.toArray(NO_RELS));
     }
 
+    /**
+     * Parses the annotation on first use, after that the same, immutable, description is returned for it.
+     */
     public static GraphDescription create(Graph graph) {
         if (graph == null) {
             return EMPTY;
         }
+        return PARSED.computeIfAbsent(graph, GraphDescription::parse);
+    }
+
+    private static GraphDescription parse(Graph graph) {
         Map<String,NODE> nodes = new HashMap<>();
         for (NODE node : graph.nodes()) {
             if (nodes.put(defined(node.name()), node) != null) {
@@ -260,6 +416,65 @@ public class GraphDescription implements GraphDefinition {
         return new GraphDescription(nodes.values().toArray(NO_NODES), relationships.toArray(NO_RELS));
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a description in code, e.g. for generated fixtures, instead of parsing it from a {@link Graph} annotation.
+     */
+    public static class Builder {
+        private final Map<String,NODE> nodes = new LinkedHashMap<>();
+        private final Map<String,List<PROP>> nodeProperties = new HashMap<>();
+        private final List<REL> relationships = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder node(String name, String... labels) {
+            createIfAbsent(nodes, defined(name), labels);
+            return this;
+        }
+
+        public Builder property(String node, String key, Object value) {
+            if (!nodes.containsKey(node)) {
+                throw new IllegalArgumentException("Node \"" + node + "\" not defined");
+            }
+            nodeProperties.computeIfAbsent(node, ignored -> new ArrayList<>()).add(new DefaultProp(key, value));
+            return this;
+        }
+
+        public Builder relationship(String start, String type, String end) {
+            return relationship(start, type, end, Collections.emptyMap());
+        }
+
+        public Builder relationship(String start, String type, String end, Map<String,Object> properties) {
+            createIfAbsent(nodes, defined(start));
+            createIfAbsent(nodes, defined(end));
+            relationships.add(new DefaultRel(start, type, end, props(properties)));
+            return this;
+        }
+
+        public GraphDescription build() {
+            NODE[] result = new NODE[nodes.size()];
+            int i = 0;
+            for (NODE node : nodes.values()) {
+                List<PROP> properties = nodeProperties.get(node.name());
+                result[i++] = properties == null ? node : new NodeWithProperties(node, properties.toArray(NO_PROPS));
+            }
+            return new GraphDescription(result, relationships.toArray(NO_RELS));
+        }
+
+        private static PROP[] props(Map<String,Object> properties) {
+            PROP[] result = new PROP[properties.size()];
+            int i = 0;
+            for (Map.Entry<String,Object> property : properties.entrySet()) {
+                result[i++] = new DefaultProp(property.getKey(), property.getValue());
+            }
+            return result;
+        }
+    }
+
     private static void createIfAbsent(Map<String,NODE> nodes, String name, String... labels) {
         if (!nodes.containsKey(name)) {
             nodes.put(name, new DefaultNode(name, labels));
@@ -397,16 +612,65 @@ public class GraphDescription implements GraphDefinition {
         }
     }
 
+    /*
+     * Used for nodes defined through the builder, which may have properties of any type.
+     */
+    private static class NodeWithProperties implements NODE {
+        private final NODE inner;
+        private final PROP[] properties;
+
+        NodeWithProperties(NODE inner, PROP[] properties) {
+            this.inner = inner;
+            this.properties = properties;
+        }
+
+        @Override
+        public String name() {
+            return inner.name();
+        }
+
+        @Override
+        public PROP[] properties() {
+            return properties;
+        }
+
+        @Override
+        public LABEL[] labels() {
+            return inner.labels();
+        }
+
+        @Override
+        public boolean setNameProperty() {
+            return inner.setNameProperty();
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return inner.annotationType();
+        }
+    }
+
     private static class DefaultRel extends Default implements REL {
         private final String start;
         private final String type;
         private final String end;
+        private final PROP[] properties;
 
         DefaultRel(String start, String type, String end) {
+            this(start, type, end, NO_PROPS);
+        }
+
+        DefaultRel(String start, String type, String end, PROP[] properties) {
             super(null);
             this.type = type;
             this.start = defined(start);
             this.end = defined(end);
+            this.properties = properties;
+        }
+
+        @Override
+        public PROP[] properties() {
+            return properties;
         }
 
         @Override
@@ -425,6 +689,44 @@ public class GraphDescription implements GraphDefinition {
         }
     }
 
+    /*
+     * A property with an already converted value, as opposed to the string representation of annotations.
+     */
+    private static class DefaultProp implements PROP {
+        private final String key;
+        private final Object value;
+
+        DefaultProp(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            throw new UnsupportedOperationException("this is not a real annotation");
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public String value() {
+            return String.valueOf(value);
+        }
+
+        @Override
+        public PropType type() {
+            return STRING;
+        }
+
+        @Override
+        public PropType componentType() {
+            return ERROR;
+        }
+    }
+
     private static class DefaultLabel implements LABEL {
 
         private final String name;
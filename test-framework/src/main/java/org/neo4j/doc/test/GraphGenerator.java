@@ -0,0 +1,424 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * Generates synthetic graphs of a given shape and size, as an alternative to hand written {@link GraphDescription}s
+ * when a fixture has to be large.
+ * <p>
+ * All randomness comes from the seed, so the same generator always creates the same graph. Every node gets a
+ * {@code name} property, made up from a prefix and a sequence number. Only the nodes named as
+ * {@link #withAnchors(String...) anchors} are returned, so that the size of the graph doesn't bound the size of the
+ * result. When a property size is set, every node also gets a {@code payload} string property of that many
+ * characters.
+ * <p>
+ * Pass a generator to {@link TestData#setGraphDatabaseService(GraphDatabaseService, GraphDefinition)} to use it as
+ * the fixture of a documentation test.
+ */
+public abstract class GraphGenerator implements GraphDefinition {
+    private static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private long seed;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int propertySize;
+    private Set<String> anchors = Set.of();
+
+    /**
+     * A social network where node degrees follow a power law with the given exponent, wired with the Chung-Lu model.
+     * Exponents between 2 and 3 give the heavy tail of real social networks.
+     */
+    public static GraphGenerator socialNetwork(int people, double averageDegree, double exponent) {
+        return new SocialNetwork(people, averageDegree, exponent);
+    }
+
+    /**
+     * A {@code width} by {@code height} grid, where every cell is connected to its right and lower neighbour.
+     */
+    public static GraphGenerator grid(int width, int height) {
+        return new Grid(width, height);
+    }
+
+    /**
+     * A tree of the given depth, where every inner node has {@code fanOut} children.
+     */
+    public static GraphGenerator tree(int depth, int fanOut) {
+        return new Tree(depth, fanOut);
+    }
+
+    /**
+     * A bipartite graph of actors that acted in movies. The number of movies an actor has acted in follows a power
+     * law with the given exponent, so there are a few stars and a long tail of extras.
+     */
+    public static GraphGenerator movies(int movies, int actors, int castSize, double exponent) {
+        return new Movies(movies, actors, castSize, exponent);
+    }
+
+    /**
+     * A uniformly random graph with the given average degree, plus {@code supernodes} nodes that are each connected
+     * to the given fraction of all other nodes.
+     */
+    public static GraphGenerator supernodes(int nodes, double averageDegree, int supernodes, double supernodeShare) {
+        return new Supernodes(nodes, averageDegree, supernodes, supernodeShare);
+    }
+
+    public GraphGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public GraphGenerator withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public GraphGenerator withPropertySize(int propertySize) {
+        this.propertySize = propertySize;
+        return this;
+    }
+
+    /**
+     * Return the nodes with the given names from {@link #create(GraphDatabaseService)}, e.g. {@code "person0"}.
+     */
+    public GraphGenerator withAnchors(String... names) {
+        this.anchors = new HashSet<>(List.of(names));
+        return this;
+    }
+
+    @Override
+    public Map<String,Node> create(GraphDatabaseService graphdb) {
+        Map<String,Long> ids = new HashMap<>();
+        Map<String,Node> result = new HashMap<>();
+        try (BulkLoader loader = new BulkLoader(graphdb, batchSize)) {
+            Context context = new Context(loader, new SplittableRandom(seed), propertySize, anchors, ids);
+            generate(context);
+            for (Map.Entry<String,Long> entry : ids.entrySet()) {
+                result.put(entry.getKey(), loader.node(entry.getValue()));
+            }
+            loader.commit();
+        }
+        return result;
+    }
+
+    abstract void generate(Context context);
+
+    static class Context {
+        private final BulkLoader loader;
+        private final SplittableRandom random;
+        private final int propertySize;
+        private final Set<String> anchors;
+        private final Map<String,Long> ids;
+        private final char[] payload;
+
+        Context(BulkLoader loader, SplittableRandom random, int propertySize, Set<String> anchors,
+                Map<String,Long> ids) {
+            this.loader = loader;
+            this.random = random;
+            this.propertySize = propertySize;
+            this.anchors = anchors;
+            this.ids = ids;
+            this.payload = new char[propertySize];
+        }
+
+        long node(Label label, String prefix, int sequence) {
+            String name = prefix + sequence;
+            long node = loader.createNode(label);
+            loader.setNodeProperty(node, "name", name);
+            if (propertySize > 0) {
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] = (char) ('a' + random.nextInt(26));
+                }
+                loader.setNodeProperty(node, "payload", new String(payload));
+            }
+            if (anchors.contains(name)) {
+                ids.put(name, node);
+            }
+            return node;
+        }
+
+        void relationship(long start, RelationshipType type, long end) {
+            loader.createRelationship(start, type, end);
+        }
+
+        Label label(String name) {
+            return loader.label(name);
+        }
+
+        RelationshipType type(String name) {
+            return loader.relationshipType(name);
+        }
+
+        SplittableRandom random() {
+            return random;
+        }
+    }
+
+    /**
+     * Picks indexes with probability proportional to a power law weight, {@code (i + 1) ^ (-1 / (exponent - 1))}.
+     * <p>
+     * The weights are scaled to integers and kept in a Fenwick tree, so picking an index costs O(log size) and picked
+     * indexes can be taken out of the draw, for sampling without replacement, and put back again.
+     */
+    static class PowerLawSampler {
+        private static final double SCALE = 1L << 32;
+
+        private final long[] weights;
+        private final long[] tree;
+        private long total;
+
+        PowerLawSampler(int size, double exponent) {
+            if (exponent <= 1) {
+                throw new IllegalArgumentException("Power law exponent must be larger than 1, was " + exponent);
+            }
+            weights = new long[size];
+            tree = new long[size + 1];
+            for (int i = 0; i < size; i++) {
+                weights[i] = Math.max(1, Math.round(Math.pow(i + 1, -1 / (exponent - 1)) * SCALE));
+                total += weights[i];
+                tree[i + 1] += weights[i];
+                int parent = (i + 1) + ((i + 1) & -(i + 1));
+                if (parent <= size) {
+                    tree[parent] += tree[i + 1];
+                }
+            }
+        }
+
+        /**
+         * @return an index that has not been {@link #remove(int) removed}.
+         */
+        int sample(SplittableRandom random) {
+            long remaining = random.nextLong(total);
+            int position = 0;
+            for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+                int next = position + step;
+                if (next <= weights.length && tree[next] <= remaining) {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            return position;
+        }
+
+        void remove(int index) {
+            update(index, -weights[index]);
+        }
+
+        void restore(int index) {
+            update(index, weights[index]);
+        }
+
+        private void update(int index, long delta) {
+            total += delta;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    private static class SocialNetwork extends GraphGenerator {
+        private final int people;
+        private final double averageDegree;
+        private final double exponent;
+
+        SocialNetwork(int people, double averageDegree, double exponent) {
+            this.people = people;
+            this.averageDegree = averageDegree;
+            this.exponent = exponent;
+        }
+
+        @Override
+        void generate(Context context) {
+            Label person = context.label("Person");
+            RelationshipType knows = context.type("KNOWS");
+            long[] nodes = new long[people];
+            for (int i = 0; i < people; i++) {
+                nodes[i] = context.node(person, "person", i);
+            }
+            if (people < 2) {
+                return;
+            }
+            PowerLawSampler sampler = new PowerLawSampler(people, exponent);
+            long relationships = Math.round(people * averageDegree / 2);
+            for (long i = 0; i < relationships; i++) {
+                int start = sampler.sample(context.random());
+                int end = sampler.sample(context.random());
+                if (start != end) {
+                    context.relationship(nodes[start], knows, nodes[end]);
+                }
+            }
+        }
+    }
+
+    private static class Grid extends GraphGenerator {
+        private final int width;
+        private final int height;
+
+        Grid(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        void generate(Context context) {
+            Label cell = context.label("Cell");
+            RelationshipType neighbour = context.type("NEIGHBOUR");
+            long[] previousRow = new long[width];
+            long[] row = new long[width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = context.node(cell, "cell", y * width + x);
+                    if (x > 0) {
+                        context.relationship(row[x - 1], neighbour, row[x]);
+                    }
+                    if (y > 0) {
+                        context.relationship(previousRow[x], neighbour, row[x]);
+                    }
+                }
+                long[] swap = previousRow;
+                previousRow = row;
+                row = swap;
+            }
+        }
+    }
+
+    private static class Tree extends GraphGenerator {
+        private final int depth;
+        private final int fanOut;
+
+        Tree(int depth, int fanOut) {
+            this.depth = depth;
+            this.fanOut = fanOut;
+        }
+
+        @Override
+        void generate(Context context) {
+            Label label = context.label("Node");
+            RelationshipType child = context.type("CHILD");
+            int sequence = 0;
+            long[] level = {context.node(label, "node", sequence++)};
+            for (int d = 0; d < depth; d++) {
+                long[] next = new long[Math.multiplyExact(level.length, fanOut)];
+                int i = 0;
+                for (long parent : level) {
+                    for (int c = 0; c < fanOut; c++) {
+                        next[i] = context.node(label, "node", sequence++);
+                        context.relationship(parent, child, next[i++]);
+                    }
+                }
+                level = next;
+            }
+        }
+    }
+
+    private static class Movies extends GraphGenerator {
+        private final int movies;
+        private final int actors;
+        private final int castSize;
+        private final double exponent;
+
+        Movies(int movies, int actors, int castSize, double exponent) {
+            this.movies = movies;
+            this.actors = actors;
+            this.castSize = castSize;
+            this.exponent = exponent;
+        }
+
+        @Override
+        void generate(Context context) {
+            Label person = context.label("Person");
+            Label movie = context.label("Movie");
+            RelationshipType actedIn = context.type("ACTED_IN");
+            long[] actorNodes = new long[actors];
+            for (int i = 0; i < actors; i++) {
+                actorNodes[i] = context.node(person, "actor", i);
+            }
+            if (actors == 0) {
+                return;
+            }
+            PowerLawSampler sampler = new PowerLawSampler(actors, exponent);
+            int[] cast = new int[Math.min(castSize, actors)];
+            for (int m = 0; m < movies; m++) {
+                long movieNode = context.node(movie, "movie", m);
+                // Nobody is cast twice in the same movie, so take every actor out of the draw once cast
+                for (int c = 0; c < cast.length; c++) {
+                    cast[c] = sampler.sample(context.random());
+                    sampler.remove(cast[c]);
+                    context.relationship(actorNodes[cast[c]], actedIn, movieNode);
+                }
+                for (int actor : cast) {
+                    sampler.restore(actor);
+                }
+            }
+        }
+    }
+
+    private static class Supernodes extends GraphGenerator {
+        private final int nodes;
+        private final double averageDegree;
+        private final int supernodes;
+        private final double supernodeShare;
+
+        Supernodes(int nodes, double averageDegree, int supernodes, double supernodeShare) {
+            this.nodes = nodes;
+            this.averageDegree = averageDegree;
+            this.supernodes = supernodes;
+            this.supernodeShare = supernodeShare;
+        }
+
+        @Override
+        void generate(Context context) {
+            Label label = context.label("Node");
+            Label hubLabel = context.label("Hub");
+            RelationshipType linked = context.type("LINKED");
+            long[] nodeIds = new long[nodes];
+            for (int i = 0; i < nodes; i++) {
+                nodeIds[i] = context.node(label, "node", i);
+            }
+            SplittableRandom random = context.random();
+            if (nodes > 1) {
+                long relationships = Math.round(nodes * averageDegree / 2);
+                for (long i = 0; i < relationships; i++) {
+                    int start = random.nextInt(nodes);
+                    int end = random.nextInt(nodes);
+                    if (start != end) {
+                        context.relationship(nodeIds[start], linked, nodeIds[end]);
+                    }
+                }
+            }
+            for (int s = 0; s < supernodes; s++) {
+                long hub = context.node(hubLabel, "hub", s);
+                for (long node : nodeIds) {
+                    if (random.nextDouble() < supernodeShare) {
+                        context.relationship(node, linked, hub);
+                    }
+                }
+            }
+        }
+    }
+}
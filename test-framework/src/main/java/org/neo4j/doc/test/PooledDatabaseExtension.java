@@ -0,0 +1,95 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Gives every test its own database from a {@link DatabasePool} shared by all test classes using this extension, so
+ * that they can run concurrently. The pool has one database per available processor, and is shut down when the
+ * whole test run is done.
+ * <p>
+ * The leased database is available as a {@link GraphDatabaseService} test or lifecycle method parameter, and through
+ * {@link #graphdb()} from the thread running the test.
+ */
+public class PooledDatabaseExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver, GraphHolder {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(PooledDatabaseExtension.class);
+    private static final String POOL = "pool";
+    private static final String DATABASE = "database";
+
+    private final ThreadLocal<GraphDatabaseService> current = new InheritableThreadLocal<>();
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws Exception {
+        GraphDatabaseService db = pool(context).lease();
+        context.getStore(NAMESPACE).put(DATABASE, db);
+        current.set(db);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        current.remove();
+        GraphDatabaseService db = context.getStore(NAMESPACE).remove(DATABASE, GraphDatabaseService.class);
+        if (db != null) {
+            pool(context).release(db);
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == GraphDatabaseService.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(DATABASE, GraphDatabaseService.class);
+    }
+
+    @Override
+    public GraphDatabaseService graphdb() {
+        GraphDatabaseService db = current.get();
+        if (db == null) {
+            throw new IllegalStateException("No database leased by this thread");
+        }
+        return db;
+    }
+
+    private static DatabasePool pool(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(POOL, key -> new ClosablePool(
+                new DatabasePool(Runtime.getRuntime().availableProcessors())), ClosablePool.class).pool;
+    }
+
+    private static class ClosablePool implements ExtensionContext.Store.CloseableResource {
+        private final DatabasePool pool;
+
+        ClosablePool(DatabasePool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() {
+            pool.close();
+        }
+    }
+}
@@ -50,7 +50,8 @@ public class TestData<T> implements BeforeEachCallback, AfterEachCallback {
         private final GraphDescription graph;
         private final String title;
         private final String doc;
-        private T entry;
+        // Set after the record has been handed to the test thread, and read by any threads the test starts
+        private volatile T entry;
 
         public TestDataRecord(GraphDescription graph, String title, String doc) {
             this.graph = graph;
@@ -68,11 +69,30 @@ public class TestData<T> implements BeforeEachCallback, AfterEachCallback {
     }
 
     public void setGraphDatabaseService(GraphDatabaseService db) {
-        TestDataRecord<T> testDataRecord = testDataCache.get();
+        TestDataRecord<T> testDataRecord = record();
         testDataRecord.entry = producer.create(testDataRecord.graph, testDataRecord.title, testDataRecord.doc, db);
     }
 
+    /**
+     * Like {@link #setGraphDatabaseService(GraphDatabaseService)}, but produces the data from the given graph instead
+     * of the one in the {@link GraphDescription.Graph} annotation of the test, e.g. from a {@link GraphGenerator}.
+     */
+    public void setGraphDatabaseService(GraphDatabaseService db, GraphDefinition graph) {
+        TestDataRecord<T> testDataRecord = record();
+        testDataRecord.entry = producer.create(requireNonNull(graph), testDataRecord.title, testDataRecord.doc, db);
+    }
+
+    private TestDataRecord<T> record() {
+        TestDataRecord<T> testDataRecord = testDataCache.get();
+        if (testDataRecord == null) {
+            throw new IllegalStateException("No test is running on this thread");
+        }
+        return testDataRecord;
+    }
+
     private final Producer<T> producer;
+    // Keyed on the thread running the test rather than held in a field, so that tests can run concurrently,
+    // e.g. with a PooledDatabaseExtension, and inherited by the threads a test starts
     private final ThreadLocal<TestDataRecord<T>> testDataCache = new InheritableThreadLocal<>();
 
     private TestData(Producer<T> producer) {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+import static org.neo4j.internal.helpers.collection.Iterators.asList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.storageengine.api.TransactionIdStore;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class BulkLoaderTest {
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void commitsATransactionEveryBatch() {
+        long before = lastCommittedTransactionId(db);
+        try (BulkLoader loader = new BulkLoader(db, 3)) {
+            Label person = loader.label("Person");
+            long previous = loader.createNode(person);
+            for (int i = 1; i < 10; i++) {
+                long node = loader.createNode(person);
+                loader.createRelationship(previous, loader.relationshipType("KNOWS"), node);
+                previous = node;
+            }
+            loader.setNodeProperty(previous, "name", "last");
+            loader.commit();
+        }
+
+        // 20 writes in batches of 3, plus the one the last commit is for
+        assertThat(lastCommittedTransactionId(db) - before).isEqualTo(7);
+        try (Transaction tx = db.beginTx()) {
+            assertThat(asList(tx.findNodes(Label.label("Person")))).hasSize(10);
+            assertThat(count(tx.getAllRelationships())).isEqualTo(9);
+            assertThat(tx.findNode(Label.label("Person"), "name", "last")).isNotNull();
+        }
+    }
+
+    @Test
+    void rollsBackTheCurrentBatchWhenNotCommitted() {
+        assertThatThrownBy(() -> {
+            try (BulkLoader loader = new BulkLoader(db, 3)) {
+                for (int i = 0; i < 4; i++) {
+                    loader.createNode(loader.label("Person"));
+                }
+                throw new IllegalStateException("Loading failed");
+            }
+        }).isInstanceOf(IllegalStateException.class);
+
+        // The first batch was committed before loading failed, the second one is rolled back
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void leavesNothingBehindWhenASingleBatchLoadFails() {
+        assertThatThrownBy(() -> {
+            try (BulkLoader loader = new BulkLoader(db, Integer.MAX_VALUE)) {
+                long node = loader.createNode();
+                loader.setNodeProperty(node, "name", "partial");
+                throw new IllegalStateException("Loading failed");
+            }
+        }).isInstanceOf(IllegalStateException.class);
+
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isZero();
+        }
+    }
+
+    @Test
+    void cannotWriteOnceCommitted() {
+        try (BulkLoader loader = new BulkLoader(db, 2)) {
+            long first = loader.createNode();
+            loader.createNode();
+            Node node = loader.node(first);
+            node.setProperty("name", "first");
+            loader.commit();
+            assertThatThrownBy(() -> loader.createNode()).isInstanceOf(IllegalStateException.class);
+        }
+
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isEqualTo(2);
+        }
+    }
+
+    static long lastCommittedTransactionId(GraphDatabaseService db) {
+        return ((GraphDatabaseAPI) db).getDependencyResolver()
+                .resolveDependency(TransactionIdStore.class)
+                .getLastCommittedTransactionId();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+class DatabasePoolTest {
+    private final DatabasePool pool = new DatabasePool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void leasesEveryDatabaseOnce() throws InterruptedException {
+        GraphDatabaseService first = pool.lease();
+        GraphDatabaseService second = pool.lease();
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(pool.managementService(first)).isNotSameAs(pool.managementService(second));
+    }
+
+    @Test
+    void emptiesADatabaseWhenItIsReleased() throws InterruptedException {
+        GraphDatabaseService db = pool.lease();
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("CREATE (:Person {name: 'Alice'})-[:KNOWS]->(:Person {name: 'Bob'})");
+            tx.commit();
+        }
+
+        pool.release(db);
+        pool.lease();
+        GraphDatabaseService released = pool.lease();
+
+        try (Transaction tx = released.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isZero();
+            assertThat(count(tx.getAllRelationships())).isZero();
+        }
+    }
+
+    @Test
+    void rejectsADatabaseItDidNotLease() throws InterruptedException {
+        GraphDatabaseService db = pool.lease();
+        pool.release(db);
+
+        assertThatThrownBy(() -> pool.release(db)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shutsDownLeasedDatabasesWhenClosed() throws InterruptedException {
+        GraphDatabaseService db = pool.lease();
+
+        pool.close();
+
+        assertThatThrownBy(db::beginTx).isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.doc.test.BulkLoaderTest.lastCommittedTransactionId;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class FixtureCacheTest {
+    private final FixtureCache cache = new FixtureCache();
+    private final GraphDescription fixture = GraphDescription.create("Alice KNOWS Bob", "Bob KNOWS Carol");
+
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void reusesAFixtureNothingHasBeenCommittedTo() {
+        Map<String,Node> created = cache.restore(db, fixture);
+        long lastTransactionId = lastCommittedTransactionId(db);
+
+        // Reading doesn't commit anything
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isEqualTo(3);
+        }
+
+        assertThat(cache.restore(db, fixture)).isSameAs(created);
+        assertThat(lastCommittedTransactionId(db)).isEqualTo(lastTransactionId);
+    }
+
+    @Test
+    void rebuildsAFixtureATestHasWrittenTo() {
+        Map<String,Node> created = cache.restore(db, fixture);
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("MATCH (n {name: 'Carol'}) DETACH DELETE n");
+            tx.createNode().setProperty("name", "Mallory");
+            tx.commit();
+        }
+
+        Map<String,Node> restored = cache.restore(db, fixture);
+
+        assertThat(restored).isNotSameAs(created).containsOnlyKeys("Alice", "Bob", "Carol");
+        assertThat(names()).containsExactlyInAnyOrder("Alice", "Bob", "Carol");
+        assertThat(cache.restore(db, fixture)).isSameAs(restored);
+    }
+
+    @Test
+    void rebuildsWhenAnotherFixtureIsRequested() {
+        cache.restore(db, fixture);
+
+        cache.restore(db, GraphDescription.create("Dave KNOWS Erin"));
+
+        assertThat(names()).containsExactlyInAnyOrder("Dave", "Erin");
+    }
+
+    @Test
+    void rebuildsAnInvalidatedFixture() {
+        Map<String,Node> created = cache.restore(db, fixture);
+
+        cache.invalidate(db);
+
+        assertThat(cache.restore(db, fixture)).isNotSameAs(created);
+        assertThat(names()).containsExactlyInAnyOrder("Alice", "Bob", "Carol");
+    }
+
+    private Iterable<Object> names() {
+        try (Transaction tx = db.beginTx()) {
+            return tx.execute("MATCH (n) RETURN n.name AS name").<Object>columnAs("name").stream().toList();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.dbms.api.DatabaseManagementException;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class GraphDatabaseServiceCleanerTest {
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void cleansContentAndSchemaInBatches() {
+        createContent(25);
+
+        GraphDatabaseServiceCleaner.cleanDatabaseContent(db, 10);
+
+        assertEmpty(db);
+    }
+
+    @Test
+    void cleansContentWhenTheDatabaseCannotBeDropped() {
+        createContent(5);
+
+        // The community edition can't drop databases
+        GraphDatabaseService cleaned = GraphDatabaseServiceCleaner.cleanDatabase(managementService, DEFAULT_DATABASE_NAME);
+
+        assertThat(cleaned.databaseName()).isEqualTo(DEFAULT_DATABASE_NAME);
+        assertEmpty(cleaned);
+    }
+
+    @Test
+    void doesNotFallBackToTheDroppedDatabaseWhenItCannotBeCreatedAgain() {
+        List<String> calls = new ArrayList<>();
+        DatabaseManagementService dropsButCannotCreate = (DatabaseManagementService) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {DatabaseManagementService.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName());
+                    if (method.getName().equals("createDatabase")) {
+                        throw new DatabaseManagementException("No space left for " + args[0]);
+                    }
+                    return null;
+                });
+
+        assertThatThrownBy(() -> GraphDatabaseServiceCleaner.cleanDatabase(dropsButCannotCreate, "dropped"))
+                .isInstanceOf(DatabaseManagementException.class)
+                .hasMessageContaining("No space left");
+        assertThat(calls).containsExactly("dropDatabase", "createDatabase");
+    }
+
+    private void createContent(int nodes) {
+        try (Transaction tx = db.beginTx()) {
+            tx.schema().indexFor(Label.label("Person")).on("name").create();
+            tx.commit();
+        }
+        try (Transaction tx = db.beginTx()) {
+            var previous = tx.createNode(Label.label("Person"));
+            for (int i = 1; i < nodes; i++) {
+                var node = tx.createNode(Label.label("Person"));
+                node.setProperty("name", "person" + i);
+                previous.createRelationshipTo(node, RelationshipType.withName("KNOWS"));
+                previous = node;
+            }
+            tx.commit();
+        }
+    }
+
+    private static void assertEmpty(GraphDatabaseService db) {
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isZero();
+            assertThat(count(tx.getAllRelationships())).isZero();
+            assertThat(tx.schema().getIndexes(Label.label("Person"))).isEmpty();
+        }
+    }
+}
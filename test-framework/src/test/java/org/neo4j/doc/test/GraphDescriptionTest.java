@@ -0,0 +1,177 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.doc.test.GraphDescription.PropType.ARRAY;
+import static org.neo4j.doc.test.GraphDescription.PropType.BYTE_ARRAY;
+import static org.neo4j.doc.test.GraphDescription.PropType.DOUBLE_ARRAY;
+import static org.neo4j.doc.test.GraphDescription.PropType.FLOAT_ARRAY;
+import static org.neo4j.doc.test.GraphDescription.PropType.INTEGER;
+import static org.neo4j.doc.test.GraphDescription.PropType.LONG_ARRAY;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import java.util.Base64;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.doc.test.GraphDescription.Graph;
+import org.neo4j.doc.test.GraphDescription.LABEL;
+import org.neo4j.doc.test.GraphDescription.NODE;
+import org.neo4j.doc.test.GraphDescription.PROP;
+import org.neo4j.doc.test.GraphDescription.PropType;
+import org.neo4j.doc.test.GraphDescription.REL;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class GraphDescriptionTest {
+    @RegisterExtension
+    final TestData<Map<String,Node>> data = TestData.producedThrough(GraphDescription.createGraphFor());
+
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        db = managementService.database(DEFAULT_DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    @Graph(nodes = {
+            @NODE(name = "I", setNameProperty = true, labels = @LABEL("Person"), properties = {
+                    @PROP(key = "age", value = "42", type = INTEGER),
+                    @PROP(key = "scores", value = "1, 2, 3", type = ARRAY, componentType = INTEGER)})},
+            relationships = {
+                    @REL(start = "I", type = "KNOWS", end = "you", properties = @PROP(key = "since", value = "2010",
+                            type = INTEGER))},
+            value = "you KNOWS him:Person")
+    void createsAnAnnotatedFixtureThroughItsPlan() {
+        data.setGraphDatabaseService(db);
+
+        Map<String,Node> nodes = data.get();
+
+        assertThat(nodes).containsOnlyKeys("I", "you", "him");
+        try (Transaction tx = db.beginTx()) {
+            Node me = tx.getNodeById(nodes.get("I").getId());
+            assertThat(me.hasLabel(Label.label("Person"))).isTrue();
+            assertThat(me.getAllProperties()).containsEntry("name", "I").containsEntry("age", 42L);
+            assertThat((long[]) me.getProperty("scores")).containsExactly(1L, 2L, 3L);
+            Relationship knows = me.getSingleRelationship(RelationshipType.withName("KNOWS"), OUTGOING);
+            assertThat(knows.getProperty("since")).isEqualTo(2010L);
+            assertThat(knows.getEndNode().getProperty("name")).isEqualTo("you");
+            Node him = tx.getNodeById(nodes.get("him").getId());
+            assertThat(him.hasLabel(Label.label("Person"))).isTrue();
+            assertThat(him.getDegree()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Graph("Alice KNOWS Bob")
+    void parsesAnAnnotationOnce() throws NoSuchMethodException {
+        Graph graph = getClass().getDeclaredMethod("parsesAnAnnotationOnce").getAnnotation(Graph.class);
+
+        GraphDescription description = GraphDescription.create(graph);
+
+        assertThat(GraphDescription.create(graph)).isSameAs(description);
+        assertThat(description.plan()).isSameAs(description.plan());
+    }
+
+    @Test
+    void createsTheSameGraphInBatches() {
+        GraphDescription description = GraphDescription.builder()
+                .node("a", "Person")
+                .property("a", "age", 1)
+                .relationship("a", "KNOWS", "b", Map.of("since", 2000))
+                .relationship("b", "KNOWS", "c")
+                .build();
+
+        Map<String,Node> nodes = description.create(db, 2);
+
+        assertThat(nodes).containsOnlyKeys("a", "b", "c");
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isEqualTo(3);
+            assertThat(tx.execute("MATCH (:Person {name: 'a', age: 1})-[:KNOWS {since: 2000}]->({name: 'b'})"
+                    + "-[:KNOWS]->({name: 'c'}) RETURN count(*) AS count").next().get("count")).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void leavesNothingBehindWhenCreatingFails() {
+        GraphDescription description = GraphDescription.builder()
+                .relationship("a", "KNOWS", "b")
+                .property("b", "unsupported", new Object())
+                .build();
+
+        assertThatThrownBy(() -> description.create(db)).isInstanceOf(IllegalArgumentException.class);
+
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isZero();
+        }
+    }
+
+    @Test
+    void convertsPrimitiveArraysFromBase64() {
+        long[] longs = {Long.MIN_VALUE, -1, 0, 42, Long.MAX_VALUE};
+        double[] doubles = {-0.5, 0, Math.PI, Double.MAX_VALUE};
+        float[] floats = {-0.5f, 0, 1.25f};
+        byte[] bytes = {-128, 0, 1, 127};
+
+        assertThat((long[]) LONG_ARRAY.convert(PropType.base64(longs))).containsExactly(longs);
+        assertThat((double[]) DOUBLE_ARRAY.convert(PropType.base64(doubles))).containsExactly(doubles);
+        assertThat((float[]) FLOAT_ARRAY.convert(PropType.base64(floats))).containsExactly(floats);
+        assertThat((byte[]) BYTE_ARRAY.convert(PropType.base64(bytes))).containsExactly(bytes);
+    }
+
+    @Test
+    void convertsPrimitiveArraysFromCommaSeparatedValues() {
+        assertThat((long[]) LONG_ARRAY.convert("1, 2,3")).containsExactly(1, 2, 3);
+        assertThat((double[]) DOUBLE_ARRAY.convert("0.5, 2")).containsExactly(0.5, 2);
+        assertThat((float[]) FLOAT_ARRAY.convert("0.5, 2")).containsExactly(0.5f, 2f);
+        assertThat((byte[]) BYTE_ARRAY.convert("-1, 2")).containsExactly(-1, 2);
+        assertThat((long[]) LONG_ARRAY.convert(" ")).isEmpty();
+    }
+
+    @Test
+    void rejectsBase64ThatIsNotAWholeNumberOfElements() {
+        // Nine bytes, one more than a long or a double and two floats
+        String nineBytes = PropType.BASE64_PREFIX + Base64.getEncoder().encodeToString(new byte[9]);
+
+        assertThatThrownBy(() -> LONG_ARRAY.convert(nineBytes)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DOUBLE_ARRAY.convert(nineBytes)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FLOAT_ARRAY.convert(nineBytes)).isInstanceOf(IllegalArgumentException.class);
+        assertThat((byte[]) BYTE_ARRAY.convert(nineBytes)).hasSize(9);
+    }
+}
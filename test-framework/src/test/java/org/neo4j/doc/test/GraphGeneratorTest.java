@@ -0,0 +1,120 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+
+class GraphGeneratorTest {
+    @RegisterExtension
+    final TestData<Map<String,Node>> data = TestData.producedThrough(GraphDescription.createGraphFor());
+
+    private DatabaseManagementService managementService;
+
+    @BeforeEach
+    void setUp() {
+        managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementService.shutdown();
+    }
+
+    @Test
+    void theSameSeedCreatesTheSameGraph() {
+        List<String> first = relationshipsOf(GraphGenerator.socialNetwork(200, 4, 2.5).withSeed(42).withBatchSize(50));
+        List<String> second = relationshipsOf(GraphGenerator.socialNetwork(200, 4, 2.5).withSeed(42));
+        List<String> third = relationshipsOf(GraphGenerator.socialNetwork(200, 4, 2.5).withSeed(43));
+
+        assertThat(first).isNotEmpty().isEqualTo(second);
+        assertThat(third).isNotEqualTo(first);
+    }
+
+    @Test
+    void returnsOnlyTheAnchors() {
+        GraphDatabaseService db = managementService.database(DEFAULT_DATABASE_NAME);
+
+        Map<String,Node> nodes = GraphGenerator.grid(10, 10).withAnchors("cell0", "cell99", "unknown").create(db);
+
+        assertThat(nodes).containsOnlyKeys("cell0", "cell99");
+        try (Transaction tx = db.beginTx()) {
+            assertThat(tx.execute("MATCH (n:Cell) RETURN count(n) AS count").next().get("count")).isEqualTo(100L);
+            assertThat(tx.getNodeById(nodes.get("cell99").getId()).getProperty("name")).isEqualTo("cell99");
+        }
+    }
+
+    @Test
+    void castsEveryActorAtMostOncePerMovie() {
+        GraphDatabaseService db = managementService.database(DEFAULT_DATABASE_NAME);
+
+        // As many actors as there are roles, which drawing with replacement would take long to fill
+        GraphGenerator.movies(50, 8, 8, 2.1).withSeed(7).create(db);
+
+        try (Transaction tx = db.beginTx()) {
+            List<Map<String,Object>> casts = tx.execute(
+                    "MATCH (m:Movie)<-[:ACTED_IN]-(a:Person) "
+                            + "RETURN m.name AS movie, count(a) AS roles, count(DISTINCT a) AS actors").stream().toList();
+            assertThat(casts).hasSize(50).allSatisfy(cast -> {
+                assertThat(cast.get("roles")).isEqualTo(8L);
+                assertThat(cast.get("actors")).isEqualTo(8L);
+            });
+        }
+    }
+
+    @Test
+    void createsTheFixtureOfADocumentationTest() {
+        GraphDatabaseService db = managementService.database(DEFAULT_DATABASE_NAME);
+
+        data.setGraphDatabaseService(db, GraphGenerator.tree(3, 2).withAnchors("node0"));
+
+        assertThat(data.get()).containsOnlyKeys("node0");
+        try (Transaction tx = db.beginTx()) {
+            assertThat(tx.getNodeById(data.get().get("node0").getId()).getDegree()).isEqualTo(2);
+        }
+    }
+
+    private static List<String> relationshipsOf(GraphGenerator generator) {
+        DatabaseManagementService managementService = new TestDatabaseManagementServiceBuilder().impermanent().build();
+        try {
+            GraphDatabaseService db = managementService.database(DEFAULT_DATABASE_NAME);
+            generator.create(db);
+            try (Transaction tx = db.beginTx()) {
+                return tx.execute("MATCH (a)-[r]->(b) RETURN a.name + '-' + type(r) + '->' + b.name AS relationship "
+                                + "ORDER BY relationship")
+                        .<String>columnAs("relationship").stream().toList();
+            }
+        }
+        finally {
+            managementService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to Neo4j under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo4j licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.doc.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+class PooledDatabaseExtensionTest {
+    @RegisterExtension
+    final PooledDatabaseExtension pooled = new PooledDatabaseExtension();
+
+    private GraphDatabaseService db;
+
+    @BeforeEach
+    void setUp(GraphDatabaseService db) {
+        this.db = db;
+    }
+
+    @RepeatedTest(3)
+    void everyTestStartsFromAnEmptyDatabase(GraphDatabaseService db) {
+        assertThat(db).isSameAs(this.db).isSameAs(pooled.graphdb());
+        try (Transaction tx = db.beginTx()) {
+            assertThat(count(tx.getAllNodes())).isZero();
+            tx.createNode().setProperty("name", "left behind");
+            tx.commit();
+        }
+    }
+}